@@ -33,7 +33,7 @@ public class DailyToDoList {
     private void internalBuilder(ToDoList t, LocalDate day2) {
         toDoList.clear();
         for (Task task : t.getTasks()) {
-            if (task.getDate().isEqual(day)) {
+            if (task.getDate().isEqual(day2)) {
                 toDoList.addTask(task);
             }
         }
@@ -62,7 +62,6 @@ public class DailyToDoList {
      * @param fullToDoList the full to-do list
      */
     public void setfullToDoList(ToDoList fullToDoList) {
-        fullToDoList.clear();
         this.fullToDoList = fullToDoList;
         internalBuilder(fullToDoList, this.day);
     }
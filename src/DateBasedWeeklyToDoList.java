@@ -13,6 +13,7 @@ public class DateBasedWeeklyToDoList implements Serializable {
      */
     private static final long serialVersionUID = 1L;
     private LinkedHashMap<LocalDate, List<Task>> weekMap = new LinkedHashMap<>(); //https://www.geeksforgeeks.org/linkedhashmap-class-in-java/
+    private LocalDate startDate;
 
     /**
      * Constructs a weekly view of tasks.
@@ -25,6 +26,7 @@ public class DateBasedWeeklyToDoList implements Serializable {
      * @param startDate the first date of the 7-day window
      */
     public DateBasedWeeklyToDoList(List<Task> allTasks, LocalDate startDate) {
+        this.startDate = startDate;
         // Initialize entries for each day in the 7-day span
         for (int i = 0; i < 7; i++) {
             LocalDate date = startDate.plusDays(i);
@@ -44,6 +46,100 @@ public class DateBasedWeeklyToDoList implements Serializable {
         }
     }
 
+    /**
+     * Constructs a weekly view straight from a date index, so only the
+     * seven day buckets are touched instead of every task.
+     *
+     * @param index     the date index to read from
+     * @param startDate the first date of the 7-day window
+     */
+    public DateBasedWeeklyToDoList(TaskDateIndex index, LocalDate startDate) {
+        this.startDate = startDate;
+        for (int i = 0; i < 7; i++) {
+            LocalDate date = startDate.plusDays(i);
+            weekMap.put(date, new ArrayList<>(index.tasksOn(date)));
+        }
+    }
+
+    /**
+     * Constructs one weekly view over several date indexes, e.g. one per
+     * task list. Each day's bucket is the indexes' buckets for that day
+     * joined in the order given, so the cost is seven lookups per index.
+     *
+     * @param indexes   the date indexes to merge
+     * @param startDate the first date of the 7-day window
+     */
+    public DateBasedWeeklyToDoList(Collection<TaskDateIndex> indexes, LocalDate startDate) {
+        this.startDate = startDate;
+        for (int i = 0; i < 7; i++) {
+            LocalDate date = startDate.plusDays(i);
+            List<Task> bucket = new ArrayList<>();
+            for (TaskDateIndex index : indexes) {
+                bucket.addAll(index.tasksOn(date));
+            }
+            weekMap.put(date, bucket);
+        }
+    }
+
+    /**
+     * Returns the first date of the 7-day window.
+     *
+     * @return the start date
+     */
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    /**
+     * Checks if a date falls inside the window.
+     *
+     * @param date the date to check
+     * @return true if date is in [startDate, startDate + 7 days)
+     */
+    public boolean covers(LocalDate date) {
+        return weekMap.containsKey(date);
+    }
+
+    /**
+     * Slides the window forward by one day.
+     * <p>
+     * The first day's bucket is dropped and handed back to the caller, and a
+     * new last day is appended with the given tasks. The other six buckets are
+     * left untouched.
+     *
+     * @param newDayTasks the tasks due on the day that enters the window
+     * @return the tasks of the day that left the window
+     */
+    public List<Task> advanceDay(List<Task> newDayTasks) {
+        List<Task> dropped = weekMap.remove(startDate);
+        weekMap.put(startDate.plusDays(7), new ArrayList<>(newDayTasks));
+        startDate = startDate.plusDays(1);
+        return dropped;
+    }
+
+    /**
+     * Adds a task to its day bucket if its due date is inside the window.
+     *
+     * @param t the task to add
+     * @return true if the task was added
+     */
+    public boolean addTask(Task t) {
+        List<Task> bucket = weekMap.get(t.getDate());
+        return bucket != null && bucket.add(t);
+    }
+
+    /**
+     * Removes a task from the bucket for the given date.
+     *
+     * @param t    the task to remove
+     * @param date the date the task was filed under
+     * @return true if the task was found and removed
+     */
+    public boolean removeTask(Task t, LocalDate date) {
+        List<Task> bucket = weekMap.get(date);
+        return bucket != null && bucket.remove(t);
+    }
+
     /**
      * Provides an unmodifiable view of the week-to-tasks mapping.
      *
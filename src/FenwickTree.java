@@ -0,0 +1,127 @@
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A Fenwick (binary indexed) tree of counts keyed by a long position,
+ * e.g. an epoch day.
+ *
+ * Point updates and range sums both cost O(log span), where span is the
+ * distance between the lowest and highest position ever used. Nodes are kept
+ * in a hash map and only nodes with a non-zero sum are stored, so memory
+ * follows the positions actually used rather than the span: a single task
+ * dated thousands of years out costs a few dozen nodes, not a huge array.
+ * The covered range starts empty and doubles in either direction on demand.
+ * https://en.wikipedia.org/wiki/Fenwick_tree
+ */
+public class FenwickTree {
+    private HashMap<Long, Long> tree = new HashMap<>(); // 1-based node index -> partial sum; absent means 0
+    private long base;                                   // position stored at node index 1
+    private long capacity;                               // covered positions: [base, base + capacity), 0 or a power of two
+    private long total;
+
+    /**
+     * Adds delta to the count at a position.
+     *
+     * @param pos   the position to change
+     * @param delta the amount to add (may be negative)
+     */
+    public void add(long pos, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        ensureCovers(pos);
+        for (long i = pos - base + 1; i <= capacity; i += i & -i) {
+            // Dropping nodes that fall back to zero keeps the map sparse
+            tree.merge(i, delta, (a, b) -> a + b == 0 ? null : a + b);
+        }
+        total += delta;
+    }
+
+    /**
+     * Returns the sum of counts at positions &lt;= pos.
+     *
+     * @param pos the last position included
+     * @return the prefix sum
+     */
+    public long prefixSum(long pos) {
+        if (capacity == 0 || pos < base) {
+            return 0;
+        }
+        if (pos >= base + capacity - 1) {
+            return total;
+        }
+        long sum = 0;
+        for (long i = pos - base + 1; i > 0; i -= i & -i) {
+            sum += tree.getOrDefault(i, 0L);
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the sum of counts in [from, to]; empty ranges sum to 0.
+     *
+     * @param from the first position included
+     * @param to   the last position included
+     * @return the range sum
+     */
+    public long rangeSum(long from, long to) {
+        if (to < from) {
+            return 0;
+        }
+        return prefixSum(to) - prefixSum(from - 1);
+    }
+
+    /**
+     * Returns the sum over every position.
+     *
+     * @return the total count
+     */
+    public long total() {
+        return total;
+    }
+
+    // Internal helpers
+
+    /**
+     * Grows the covered range so pos is inside it, keeping all existing counts.
+     * <p>
+     * Doubling to the right only adds a new root, whose sum is the total so
+     * far. Doubling to the left by a multiple of the capacity shifts every
+     * node index by that multiple, which leaves each node's low bit, and so
+     * the tree's shape, unchanged; the old root lands on the new root. Either
+     * way nothing has to be rebuilt.
+     */
+    private void ensureCovers(long pos) {
+        if (capacity == 0) {
+            capacity = 16;
+            base = pos - capacity / 2; // Room on both sides
+        }
+        while (pos - base >= capacity) {
+            capacity = doubled(capacity);
+            if (total != 0) {
+                tree.put(capacity, total);
+            }
+        }
+        if (pos < base) {
+            long newCapacity = capacity;
+            while (pos < base - (newCapacity - capacity)) {
+                newCapacity = doubled(newCapacity);
+            }
+            long shift = newCapacity - capacity;
+            HashMap<Long, Long> moved = new HashMap<>(tree.size() * 2);
+            for (Map.Entry<Long, Long> e : tree.entrySet()) {
+                moved.put(e.getKey() + shift, e.getValue());
+            }
+            tree = moved;
+            base -= shift;
+            capacity = newCapacity;
+        }
+    }
+
+    private static long doubled(long capacity) {
+        if (capacity > Long.MAX_VALUE / 4) {
+            throw new IllegalArgumentException("Position range too wide");
+        }
+        return capacity * 2;
+    }
+}
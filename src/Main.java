@@ -1,38 +1,84 @@
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.scene.Scene;
+import javafx.scene.chart.*;
 import javafx.scene.control.*;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.scene.layout.Priority;
+import javafx.stage.DirectoryChooser;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import javafx.geometry.Insets;
 
 import java.io.*;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Main JavaFX Application class for the ToDo List GUI.
  * 
- * Provides tabs for viewing tasks due this week, next week, and overdue tasks.
+ * Provides tabs for browsing tasks week by week and for overdue tasks,
+ * a statistics tab, one tab per saved filter, and a read-only week across
+ * every task list. One named list is active at a time.
  * Users can add new tasks, and delete completed tasks via the interface.
  */
 public class Main extends Application {
     /**
      * vars
      */
-    private static final String FILENAME = "Object.dat"; //Filename used for serializing the task list to disk.
-    private List<Task> allTasks;//Imemory list of all Task objects loaded or created.
+    private static final String FILENAME = "Object.dat"; //Filename used for serializing the default task list to disk.
+    private static final String LISTS_DIRNAME = "lists"; //Folder holding the other named lists and their sync state.
+    private static final String FILTERS_FILENAME = "Filters.dat"; //Filename used for the saved filter texts.
+    private static final String SYNC_FILENAME = "Sync.dat"; //Filename used for this copy's sync stamps and progress.
+    private TaskWorkspace workspace;//Every named list; only recently used ones stay loaded.
+    private TaskList activeList;//The list on screen, pinned so it is never evicted.
+    private TaskStore store;//In-memory task model of the active list; every change is saved and redrawn once per batch.
     private DateTimeFormatter dtf = DateTimeFormatter.ISO_LOCAL_DATE;// Formatter for displaying dates in ISO_LOCAL_DATE format (yyyy-MM-dd).
     private TabPane tabPane;//The main TabPane containing weekly and overdue task tabs.
     private LocalDate today;//LocalDate representing today's date for filtering tasks.
+    private TaskDateIndex dateIndex;//Tasks grouped by due date, kept in step with the store.
+    private TaskWindows windows;//This week / next week / overdue, updated incrementally.
+    private TaskStats stats;//Fenwick-tree range counts behind the statistics tab.
+    private String statsPeriod = "Week";//Granularity of the completion-rate chart.
+    private TaskStatusIndex statusIndex;//Open/complete split for the query engine.
+    private TaskTextIndex textIndex;//Word prefixes for the query engine.
+    private TaskQueryEngine queries;//Plans filter queries against the indexes.
+    private List<String> savedFilters;//Filter texts shown as their own tabs.
+    private String currentSearch;//Filter text shown in the Search tab, or null when closed.
+    private NextUpQueue nextUp;//Heap of open tasks by priority and due date.
+    private TaskSync sync;//Exchanges field-level deltas with other copies through a shared folder.
+    private WeekViewCache<VBox> weekCache;//Recently viewed weeks other than this and next, rendered; dropped when one of their tasks or ticks changes.
+    private int weekOffset;//Which week the Week tab shows: 0 = this week, 1 = next week, -1 = last week.
+    private VBox nextUpBox = new VBox(10);//The "Next up" panel beside the tabs.
+    private MidnightRollover rollover;//Slides the windows forward at local midnight.
+    private static final Duration IDLE_LIMIT = Duration.ofMinutes(10); //Lists unused for this long are closed.
+    private ScheduledExecutorService idleSweeper;//Closes idle lists once a minute.
+    private Set<Task> selected = new LinkedHashSet<>();//Tasks ticked for the bulk actions.
+    private Stage stage;//The primary stage, retitled when the day or the list changes.
+    private ComboBox<String> listBox = new ComboBox<>();//Picks the active list.
+    // One redraw and one push per change, however many tasks a batch touched; the list saves itself
+    private TaskStore.Listener redraw = change -> {
+        selected.removeAll(change.getRemoved());
+        refreshTabs();
+        pushChanges();
+    };
+
+    private Label statusLabel = new Label();//Filter errors and import/export results.
+    private Label damageLabel = new Label();//Damage found when the active list was loaded; kept until another list is shown.
 
     // UI components for task creation
     private TextField nameField;
     private TextArea descField;
     private DatePicker datePicker;
+    private ComboBox<String> priorityBox;
+    private TextField estimateField;
 
     /**
      * Standard JavaFX main method to launch the application.
@@ -47,21 +93,47 @@ public class Main extends Application {
      * 
      *   Loads or seeds tasks from file.
      *   Sets up UI components and layout.
-     *   Defines event handlers for adding and deleting tasks.
+     *   Defines event handlers for adding, deleting and bulk-editing tasks.
      *   Displays the stage.
      *
      * @param stage the primary stage provided by JavaFX
      */
     @Override
     public void start(Stage stage) {
-        // Load existing tasks or create sample tasks
-        allTasks = loadOrSeedTasks();
-        today = LocalDate.now();  // Capture today's date
-        stage.setTitle("ToDo List - " + dtf.format(today));
-
-        // Create and populate the tab pane
+        this.stage = stage;
+        today = kiwi.today();  // Capture today's date from the app clock
+        savedFilters = loadFilters();
         tabPane = new TabPane();
-        refreshTabs();  // Build tabs for this week, next week, overdue
+
+        // Find the lists on disk; only the active one is loaded now
+        workspace = new TaskWorkspace(new File(FILENAME), new File(LISTS_DIRNAME), 8, kiwi.getClock());
+        listBox.getItems().setAll(workspace.getNames());
+        listBox.setValue(TaskWorkspace.DEFAULT_LIST);
+        listBox.setOnAction(e -> {
+            if (listBox.getValue() != null) {
+                activateList(listBox.getValue());
+            }
+        });
+        activateList(TaskWorkspace.DEFAULT_LIST); // Builds the tabs for this week, next week, overdue
+
+        // At midnight shift the windows by a day instead of rebuilding them
+        rollover = new MidnightRollover(kiwi.getClock(), () -> Platform.runLater(() -> {
+            if (windows.rollTo(kiwi.today())) {
+                today = windows.getToday();
+                updateTitle();
+                refreshTabs();
+            }
+        }));
+        rollover.start();
+
+        // Close lists nobody has looked at for a while, even if the user never switches lists
+        idleSweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "idle-lists");
+            t.setDaemon(true);
+            return t;
+        });
+        idleSweeper.scheduleAtFixedRate(() -> Platform.runLater(() -> workspace.evictIdle(IDLE_LIMIT)),
+            1, 1, TimeUnit.MINUTES);
 
         // Set up input fields for new tasks
         nameField = new TextField();
@@ -74,6 +146,12 @@ public class Main extends Application {
         datePicker = new DatePicker();
         datePicker.setPromptText("Due date");
 
+        priorityBox = createPriorityBox();
+
+        estimateField = new TextField();
+        estimateField.setPromptText("Minutes");
+        estimateField.setPrefColumnCount(5);
+
         // Button to add a new task
         Button addBtn = new Button("Add Task");
         addBtn.setOnAction(e -> {//https://www.geeksforgeeks.org/lambda-expressions-java-8/
@@ -83,29 +161,163 @@ public class Main extends Application {
             // Only add if name and date are provided
             if (!name.isEmpty() && date != null) {
                 Task t = new Task(name, desc, date);
-                allTasks.add(t);
-                saveTasks();          // Persist updated list
-                refreshTabs();        // Refresh UI
+                t.setPriority(priorityBox.getSelectionModel().getSelectedIndex());
+                try {
+                    String minutes = estimateField.getText().trim();
+                    t.setEstimateMinutes(minutes.isEmpty() ? 0 : Integer.parseInt(minutes));
+                } catch (IllegalArgumentException ex) {
+                    statusLabel.setText("Estimate must be a whole number of minutes");
+                    return;
+                }
+                store.add(t); // Listener persists and refreshes
                 // Clear input fields
                 nameField.clear();
                 descField.clear();
                 datePicker.setValue(null);
+                priorityBox.getSelectionModel().select(Task.PRIORITY_NONE);
+                estimateField.clear();
             }
         });
 
         // Button to delete all completed tasks
         Button deleteBtn = new Button("Delete Completed");
-        deleteBtn.setOnAction(e -> {allTasks.removeIf(Task::isComplete);saveTasks();refreshTabs();});
+        deleteBtn.setOnAction(e -> store.removeIf(Task::isComplete));
+
+        // Bulk actions; each one is a single batch so it saves and redraws once
+        Button completeSelectedBtn = new Button("Complete Selected");
+        completeSelectedBtn.setOnAction(e -> store.batch(s -> {
+            for (Task t : selected) s.setComplete(t, true);
+        }));
+
+        Button reopenSelectedBtn = new Button("Reopen Selected");
+        reopenSelectedBtn.setOnAction(e -> store.batch(s -> {
+            for (Task t : selected) s.setComplete(t, false);
+        }));
+
+        Button postponeSelectedBtn = new Button("Postpone Selected 1 Week");
+        postponeSelectedBtn.setOnAction(e -> store.batch(s -> {
+            for (Task t : selected) s.setDueDate(t, t.getDate().plusWeeks(1));
+        }));
+
+        ComboBox<String> bulkPriority = createPriorityBox();
+        Button prioritizeSelectedBtn = new Button("Set Priority");
+        prioritizeSelectedBtn.setOnAction(e -> store.batch(s -> {
+            int p = bulkPriority.getSelectionModel().getSelectedIndex();
+            for (Task t : selected) s.setPriority(t, p);
+        }));
+
+        Button completeTodayBtn = new Button("Complete All Today");
+        completeTodayBtn.setOnAction(e -> store.batch(s -> {
+            for (Task t : dateIndex.tasksOn(today)) s.setComplete(t, true);
+        }));
+
+        Button postponeOverdueBtn = new Button("Postpone Overdue 1 Week");
+        postponeOverdueBtn.setOnAction(e -> store.batch(s -> {
+            for (Task t : windows.getOverdue()) {
+                if (!t.isComplete()) s.setDueDate(t, t.getDate().plusWeeks(1));
+            }
+        }));
+
+        Button clearSelectionBtn = new Button("Clear Selection");
+        clearSelectionBtn.setOnAction(e -> {selected.clear();weekCache.clear();refreshTabs();});
+
+        HBox bulkBox = new HBox(10, completeSelectedBtn, reopenSelectedBtn, postponeSelectedBtn,
+            bulkPriority, prioritizeSelectedBtn, completeTodayBtn, postponeOverdueBtn, clearSelectionBtn);
+        bulkBox.setPadding(new Insets(10));
+
+        // Filter box: Enter or Search shows results, Save keeps the filter as a tab
+        TextField filterField = new TextField();
+        filterField.setPromptText("Filter, e.g. report is:open due:today..2025-12-31");
+        Button searchBtn = new Button("Search");
+        searchBtn.setOnAction(e -> {
+            String text = filterField.getText().trim();
+            if (checkFilter(text, statusLabel)) {
+                currentSearch = text;
+                refreshTabs();
+                tabPane.getSelectionModel().selectLast();
+            }
+        });
+        filterField.setOnAction(searchBtn.getOnAction());
+        Button saveFilterBtn = new Button("Save Filter as Tab");
+        saveFilterBtn.setOnAction(e -> {
+            String text = filterField.getText().trim();
+            if (!text.isEmpty() && !savedFilters.contains(text) && checkFilter(text, statusLabel)) {
+                savedFilters.add(text);
+                saveFilters();
+                refreshTabs();
+            }
+        });
+        // Bulk file transfer; parsing runs off the UI thread, the insert is one batch
+        Button importBtn = new Button("Import...");
+        importBtn.setOnAction(e -> {
+            File file = transferChooser("Import tasks").showOpenDialog(stage);
+            if (file != null) {
+                importTasks(file);
+            }
+        });
+        Button exportBtn = new Button("Export...");
+        exportBtn.setOnAction(e -> {
+            File file = transferChooser("Export tasks").showSaveDialog(stage);
+            if (file != null) {
+                exportTasks(file);
+            }
+        });
+
+        // Sync with other copies through a shared folder
+        Button syncFolderBtn = new Button("Sync Folder...");
+        syncFolderBtn.setOnAction(e -> {
+            DirectoryChooser chooser = new DirectoryChooser();
+            chooser.setTitle("Shared sync folder");
+            File dir = chooser.showDialog(stage);
+            if (dir != null) {
+                sync.setFolder(dir);
+                syncNow();
+            }
+        });
+        Button syncBtn = new Button("Sync Now");
+        syncBtn.setOnAction(e -> syncNow());
+
+        // New named list, which becomes the active one
+        TextField newListField = new TextField();
+        newListField.setPromptText("New list");
+        newListField.setPrefColumnCount(8);
+        Button newListBtn = new Button("Add List");
+        newListBtn.setOnAction(e -> {
+            try {
+                String name = workspace.create(newListField.getText()).getName();
+                newListField.clear();
+                listBox.getItems().setAll(workspace.getNames());
+                listBox.setValue(name); // Fires activateList
+            } catch (IllegalArgumentException ex) {
+                statusLabel.setText(ex.getMessage());
+            } catch (IOException ex) {
+                ex.printStackTrace();
+                statusLabel.setText("Could not create list: " + ex.getMessage());
+            }
+        });
+        newListField.setOnAction(newListBtn.getOnAction());
+
+        HBox listBar = new HBox(10, new Label("List:"), listBox, newListField, newListBtn, damageLabel);
+        listBar.setPadding(new Insets(10, 10, 0, 10));
+
+        HBox filterBox = new HBox(10, filterField, searchBtn, saveFilterBtn, importBtn, exportBtn,
+            syncFolderBtn, syncBtn, statusLabel);
+        filterBox.setPadding(new Insets(10, 10, 0, 10));
+        HBox.setHgrow(filterField, Priority.ALWAYS);
 
         // Layout for input controls
-        HBox inputBox = new HBox(10, nameField, descField, datePicker, addBtn, deleteBtn);
+        HBox inputBox = new HBox(10, nameField, descField, datePicker, priorityBox, estimateField, addBtn, deleteBtn);
         inputBox.setPadding(new Insets(10));
         HBox.setHgrow(nameField, Priority.ALWAYS);
         HBox.setHgrow(descField, Priority.ALWAYS);
 
         // Root layout for the scene
         BorderPane root = new BorderPane();
+        root.setTop(new VBox(listBar, filterBox, bulkBox)); // List picker, filter and bulk actions
         root.setCenter(tabPane);     // Main content
+        nextUpBox.setPadding(new Insets(10));
+        nextUpBox.setPrefWidth(220);
+        root.setRight(nextUpBox);    // Next up panel
         root.setBottom(inputBox);    // Input area
 
         Scene scene = new Scene(root, 800, 600);
@@ -114,29 +326,175 @@ public class Main extends Application {
     }
 
     /**
-     * Rebuilds the TabPane with updated task lists.
+     * Stops the midnight and idle-list timers when the application exits.
+     */
+    @Override
+    public void stop() {
+        if (rollover != null) {
+            rollover.stop();
+        }
+        if (idleSweeper != null) {
+            idleSweeper.shutdownNow();
+        }
+    }
+
+    /**
+     * Makes a list the one on screen. Its store and date index come from the
+     * workspace (loaded on first use); the windows, stats, queue, query
+     * indexes, week cache and sync are rebuilt over it, and the previous
+     * list's are detached so they stop following a store no longer shown.
+     * Lists left idle for a while are closed to free their memory.
+     *
+     * @param name the list to show
+     */
+    private void activateList(String name) {
+        if (activeList != null && activeList.getName().equalsIgnoreCase(name)) {
+            return;
+        }
+        TaskList list = workspace.open(name);
+        if (activeList != null) {
+            store.removeListener(redraw);
+            for (TaskStore.Listener l : Arrays.asList(windows, stats, nextUp, sync, weekCache, statusIndex, textIndex)) {
+                store.removeListener(l);
+            }
+            workspace.pin(activeList.getName(), false);
+        }
+        workspace.pin(list.getName(), true);
+        activeList = list;
+        store = list.getStore();
+        dateIndex = list.getIndex();
+        selected.clear();
+
+        // Index and windows listen first so they are current when the UI redraws
+        windows = new TaskWindows(store, dateIndex, today);
+        stats = new TaskStats(store);
+        nextUp = new NextUpQueue(store);
+        File syncFile = name.equals(TaskWorkspace.DEFAULT_LIST)
+            ? new File(SYNC_FILENAME) : new File(LISTS_DIRNAME, list.getName() + ".sync");
+        sync = new TaskSync(store, syncFile, list.getName()); // Deltas go under <folder>/<list name>/
+        weekCache = new WeekViewCache<>(store, dateIndex, this::renderWeek, 12);
+        statusIndex = new TaskStatusIndex(store);
+        textIndex = new TaskTextIndex(store);
+        queries = new TaskQueryEngine(store, dateIndex, statusIndex, textIndex, stats);
+        store.addListener(redraw);
+
+        statusLabel.setText("");
+        damageLabel.setText("");
+        if (list.getBackup() != null) {
+            // Its own label, so later status messages (e.g. the sync below) do not hide it
+            damageLabel.setText("Some saved tasks could not be read (" + list.getDamage().size()
+                + " damaged chunks, first: " + list.getDamage().get(0) + "); original kept as "
+                + list.getBackup().getName());
+        }
+        workspace.evictIdle(IDLE_LIMIT);
+        updateTitle();
+        refreshTabs();
+        syncNow(); // Pick up edits made elsewhere while this list was closed
+    }
+
+    /**
+     * Shows the active list and today's date in the window title.
+     */
+    private void updateTitle() {
+        stage.setTitle("ToDo List - " + activeList.getName() + " - " + dtf.format(today));
+    }
+
+    /**
+     * Redraws the TabPane from the current windows.
      * Includes tabs for "This Week", "Next Week", and "Overdue".
      */
     private void refreshTabs() {
+        refreshNextUp();
         tabPane.getTabs().clear();
-        // Add a weekly tab for the current week
+        // Add a weekly tab for the week being browsed
         tabPane.getTabs().addAll(
-            createWeeklyTab("This Week", today),
-            createWeeklyTab("Next Week", today.plusWeeks(1)),
-            createOverdueTab("Overdue", today)
+            createWeeklyTab(),
+            createOverdueTab("Overdue", windows.getOverdue()),
+            createStatsTab("Statistics"),
+            createAllListsTab()
         );
+        // Saved filters are re-parsed so relative dates like "today" follow the clock
+        for (String text : savedFilters) {
+            Tab tab = createFilterTab(text);
+            tab.setOnClosed(e -> {savedFilters.remove(text);saveFilters();});
+            tabPane.getTabs().add(tab);
+        }
+        if (currentSearch != null) {
+            Tab tab = createFilterTab(currentSearch);
+            tab.setText("Search: " + currentSearch);
+            tab.setOnClosed(e -> currentSearch = null);
+            tabPane.getTabs().add(tab);
+        }
     }
 
     /**
-     * Creates a tab showing tasks for a 7-day window starting at startDate.
-     * Each task is represented by a CheckBox to mark completion.
+     * Creates the tab showing one 7-day window, with buttons to step to the
+     * previous or next week. This week and next week are drawn from the
+     * windows; other weeks swap in the cached view for that week, so flipping
+     * back and forth does not rebuild anything.
      *
-     * @param title the tab label
-     * @param startDate the first date of the week window
      * @return a non-closable Tab with tasks listed
      */
-    private Tab createWeeklyTab(String title, LocalDate startDate) {
-        DateBasedWeeklyToDoList wlist = new DateBasedWeeklyToDoList(allTasks, startDate);
+    private Tab createWeeklyTab() {
+        ScrollPane sp = new ScrollPane();
+        Tab tab = new Tab();
+        tab.setClosable(false);
+
+        Button prevBtn = new Button("< Previous");
+        prevBtn.setOnAction(e -> {weekOffset--;showWeek(tab, sp);});
+        Button todayBtn = new Button("This Week");
+        todayBtn.setOnAction(e -> {weekOffset = 0;showWeek(tab, sp);});
+        Button nextBtn = new Button("Next >");
+        nextBtn.setOnAction(e -> {weekOffset++;showWeek(tab, sp);});
+        HBox nav = new HBox(10, prevBtn, todayBtn, nextBtn);
+        nav.setPadding(new Insets(10, 10, 0, 10));
+
+        BorderPane content = new BorderPane();
+        content.setTop(nav);
+        content.setCenter(sp);
+        tab.setContent(content);
+        showWeek(tab, sp);
+        // Redraw on return, so ticks made in other tabs show up here
+        tab.setOnSelectionChanged(e -> {
+            if (tab.isSelected()) {
+                showWeek(tab, sp);
+            }
+        });
+        return tab;
+    }
+
+    /**
+     * Puts the week selected by weekOffset into the week tab.
+     *
+     * @param tab the week tab, retitled to match
+     * @param sp  the scroll pane holding the week's tasks
+     */
+    private void showWeek(Tab tab, ScrollPane sp) {
+        LocalDate start = today.plusWeeks(weekOffset);
+        if (weekOffset == 0) {
+            tab.setText("This Week");
+        } else if (weekOffset == 1) {
+            tab.setText("Next Week");
+        } else {
+            tab.setText("Week of " + dtf.format(start));
+        }
+        if (weekOffset == 0) {
+            sp.setContent(renderWeek(windows.getThisWeek()));
+        } else if (weekOffset == 1) {
+            sp.setContent(renderWeek(windows.getNextWeek()));
+        } else {
+            sp.setContent(weekCache.getView(start));
+        }
+    }
+
+    /**
+     * Renders a 7-day window as a list of days.
+     * Each task is represented by a CheckBox to mark completion.
+     *
+     * @param wlist the week to show
+     * @return a VBox with one heading per day and its task rows
+     */
+    private VBox renderWeek(DateBasedWeeklyToDoList wlist) {
         VBox vbox = new VBox(10);
         vbox.setPadding(new Insets(10));
 
@@ -150,52 +508,97 @@ public class Main extends Application {
             if (tasksForDay.isEmpty()) {
                 vbox.getChildren().add(new Label("  (no tasks)"));
             } else {
-                // Add a CheckBox for each task
+                // Add a row for each task
                 for (Task t : tasksForDay) {
-                    CheckBox cb = new CheckBox(t.getName() + ": " + t.getDescription() + " (due " + dtf.format(t.getDate()) + ")");
-                    cb.setSelected(t.isComplete());
-                    cb.setOnAction(e -> {
-                        // Toggle task completion and refresh
-                        if (cb.isSelected()) t.markComplete(); else t.markIncomplete();
-                        saveTasks();
-                        refreshTabs();
-                    });
-                    vbox.getChildren().add(cb);
+                    vbox.getChildren().add(createTaskRow(t));
                 }
             }
         }
+        return vbox;
+    }
 
-        ScrollPane sp = new ScrollPane(vbox);
-        Tab tab = new Tab(title, sp);
+    /**
+     * Creates the read-only tab showing the browsed week across every list.
+     * The content is only built when the tab is selected, since that opens
+     * every list; the week is merged from the lists' date indexes.
+     *
+     * @return a non-closable Tab, filled in on selection
+     */
+    private Tab createAllListsTab() {
+        Tab tab = new Tab("All Lists");
         tab.setClosable(false);
+        tab.setOnSelectionChanged(e -> {
+            if (!tab.isSelected()) {
+                return;
+            }
+            LocalDate start = today.plusWeeks(weekOffset);
+            Map<Task, String> owners = new IdentityHashMap<>();
+            DateBasedWeeklyToDoList week = workspace.combinedWeek(start, owners);
+            VBox vbox = new VBox(10);
+            vbox.setPadding(new Insets(10));
+            for (Map.Entry<LocalDate, List<Task>> entry : week.getWeekMap().entrySet()) {
+                vbox.getChildren().add(new Label(dtf.format(entry.getKey())));
+                if (entry.getValue().isEmpty()) {
+                    vbox.getChildren().add(new Label("  (no tasks)"));
+                }
+                for (Task t : entry.getValue()) {
+                    String owner = owners.get(t);
+                    vbox.getChildren().add(new Label("  " + (t.isComplete() ? "✓ " : "• ")
+                        + (owner == null ? "" : "[" + owner + "] ") + t.getName() + ": " + t.getDescription()));
+                }
+            }
+            tab.setContent(new ScrollPane(vbox));
+        });
         return tab;
     }
 
     /**
-     * Creates a tab listing all overdue tasks relative to todayDate.
+     * Creates a tab listing all overdue tasks.
      * Similar in structure to weekly tabs but only for tasks before today.
      *
-     * @param title     the tab label (e.g., "Overdue")
-     * @param todayDate reference date for overdue calculation
+     * @param title   the tab label (e.g., "Overdue")
+     * @param overdue the tasks due before today
      * @return a non-closable Tab with overdue tasks
      */
-    private Tab createOverdueTab(String title, LocalDate todayDate) {
+    private Tab createOverdueTab(String title, List<Task> overdue) {
+        return createListTab(title, overdue, "(no overdue tasks)");
+    }
+
+    /**
+     * Creates a closable tab with the results of a filter query.
+     *
+     * @param text the filter text, also used as the tab label
+     * @return a Tab listing the matching tasks
+     */
+    private Tab createFilterTab(String text) {
+        List<Task> matches;
+        try {
+            matches = queries.run(TaskQuery.parse(text, today));
+        } catch (IllegalArgumentException e) {
+            matches = new ArrayList<>();
+        }
+        Tab tab = createListTab(text, matches, "(no matching tasks)");
+        tab.setClosable(true);
+        return tab;
+    }
+
+    /**
+     * Creates a tab with one row per task, or a placeholder when empty.
+     *
+     * @param title     the tab label
+     * @param tasks     the tasks to list
+     * @param emptyText what to show when there are no tasks
+     * @return a non-closable Tab listing the tasks
+     */
+    private Tab createListTab(String title, List<Task> tasks, String emptyText) {
         VBox vbox = new VBox(10);
         vbox.setPadding(new Insets(10));
 
-        List<Task> overdue = DateBasedWeeklyToDoList.getOverdue(allTasks, todayDate);
-        if (overdue.isEmpty()) {
-            vbox.getChildren().add(new Label("(no overdue tasks)"));
+        if (tasks.isEmpty()) {
+            vbox.getChildren().add(new Label(emptyText));
         } else {
-            for (Task t : overdue) {
-                CheckBox cb = new CheckBox(t.getName() + ": " + t.getDescription() + " (due " + dtf.format(t.getDate()) + ")");
-                cb.setSelected(t.isComplete());
-                cb.setOnAction(e -> {
-                    if (cb.isSelected()) t.markComplete(); else t.markIncomplete();
-                    saveTasks();
-                    refreshTabs();
-                });
-                vbox.getChildren().add(cb);
+            for (Task t : tasks) {
+                vbox.getChildren().add(createTaskRow(t));
             }
         }
 
@@ -206,17 +609,282 @@ public class Main extends Application {
     }
 
     /**
-     * Loads existing tasks from file or seeds with sample tasks.
-     * If deserialization fails or file absent, creates and saves sample data.
+     * Parses filter text and reports any syntax error in the status label.
+     *
+     * @param text   the filter text
+     * @param status the label to write errors to
+     * @return true if the text parsed
+     */
+    private boolean checkFilter(String text, Label status) {
+        try {
+            TaskQuery.parse(text, today);
+            status.setText("");
+            return true;
+        } catch (IllegalArgumentException e) {
+            status.setText(e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Creates a tab with completion-rate, burndown and overdue charts.
+     * Every chart point is a range count on the stats trees, so the cost does
+     * not depend on how many tasks there are.
      *
-     * @return List of Task objects to populate the UI
+     * @param title the tab label
+     * @return a non-closable Tab with the charts
+     */
+    private Tab createStatsTab(String title) {
+        VBox vbox = new VBox(10);
+        vbox.setPadding(new Insets(10));
+
+        ComboBox<String> period = new ComboBox<>();
+        period.getItems().addAll("Day", "Week", "Month");
+        period.setValue(statsPeriod);
+
+        VBox charts = new VBox(10);
+        charts.getChildren().addAll(createCompletionChart(statsPeriod), createBurndownChart());
+        period.setOnAction(e -> {
+            statsPeriod = period.getValue();
+            charts.getChildren().set(0, createCompletionChart(statsPeriod));
+        });
+
+        vbox.getChildren().addAll(new HBox(10, new Label("Completion rate per"), period), charts);
+
+        ScrollPane sp = new ScrollPane(vbox);
+        Tab tab = new Tab(title, sp);
+        tab.setClosable(false);
+        return tab;
+    }
+
+    /**
+     * Bar chart of the completion rate for the last 12 days, weeks or months,
+     * ending with the one containing today.
+     *
+     * @param unit "Day", "Week" or "Month"
+     * @return the chart
+     */
+    private BarChart<String, Number> createCompletionChart(String unit) {
+        BarChart<String, Number> chart = new BarChart<>(new CategoryAxis(), new NumberAxis(0, 100, 10));
+        chart.setTitle("Completion rate (%)");
+        chart.setLegendVisible(false);
+        XYChart.Series<String, Number> series = new XYChart.Series<>();
+
+        for (int i = 11; i >= 0; i--) {
+            LocalDate from;
+            LocalDate to;
+            if (unit.equals("Day")) {
+                from = today.minusDays(i);
+                to = from;
+            } else if (unit.equals("Week")) {
+                from = today.minusWeeks(i);
+                to = from.plusDays(6);
+            } else {
+                from = today.minusMonths(i).withDayOfMonth(1);
+                to = from.plusMonths(1).minusDays(1);
+            }
+            series.getData().add(new XYChart.Data<>(dtf.format(from), stats.completionRate(from, to) * 100));
+        }
+        chart.getData().add(series);
+        return chart;
+    }
+
+    /**
+     * Line chart of open work still scheduled (burndown) and of the overdue
+     * count, for each day from two weeks ago to two weeks ahead.
+     *
+     * @return the chart
+     */
+    private LineChart<String, Number> createBurndownChart() {
+        LineChart<String, Number> chart = new LineChart<>(new CategoryAxis(), new NumberAxis());
+        chart.setTitle("Open tasks");
+        XYChart.Series<String, Number> remaining = new XYChart.Series<>();
+        remaining.setName("Still scheduled");
+        XYChart.Series<String, Number> overdue = new XYChart.Series<>();
+        overdue.setName("Overdue");
+
+        for (LocalDate d = today.minusDays(14); !d.isAfter(today.plusDays(14)); d = d.plusDays(1)) {
+            String label = dtf.format(d);
+            remaining.getData().add(new XYChart.Data<>(label, stats.remainingFrom(d)));
+            overdue.getData().add(new XYChart.Data<>(label, stats.overdueOn(d)));
+        }
+        chart.getData().add(remaining);
+        chart.getData().add(overdue);
+        return chart;
+    }
+
+    /**
+     * Redraws the "Next up" panel with the five most pressing open tasks.
+     * Reading them off the heap is O(k log k); nothing is re-sorted.
+     */
+    private void refreshNextUp() {
+        nextUpBox.getChildren().clear();
+        nextUpBox.getChildren().add(new Label("Next up"));
+        List<Task> top = nextUp.top(5);
+        if (top.isEmpty()) {
+            nextUpBox.getChildren().add(new Label("(nothing open)"));
+        }
+        for (Task t : top) {
+            nextUpBox.getChildren().add(createTaskRow(t));
+        }
+    }
+
+    /**
+     * Creates a drop-down of the priority names, indexed by priority value.
+     *
+     * @return the drop-down with "None" selected
+     */
+    private ComboBox<String> createPriorityBox() {
+        ComboBox<String> box = new ComboBox<>();
+        for (int p = Task.PRIORITY_NONE; p <= Task.PRIORITY_HIGH; p++) {
+            box.getItems().add(Task.priorityName(p));
+        }
+        box.getSelectionModel().select(Task.PRIORITY_NONE);
+        return box;
+    }
+
+    /**
+     * Builds the row for one task: a selection box for bulk actions and
+     * a CheckBox that toggles completion.
+     *
+     * @param t the task to show
+     * @return an HBox holding both controls
+     */
+    private HBox createTaskRow(Task t) {
+        CheckBox pick = new CheckBox();
+        pick.setSelected(selected.contains(t));
+        pick.setOnAction(e -> {
+            if (pick.isSelected()) selected.add(t); else selected.remove(t);
+            weekCache.invalidate(t.getDate()); // The cached row for this task shows the old tick
+        });
+
+        String priority = t.getPriority() == Task.PRIORITY_NONE ? "" : "[" + t.getPriorityName() + "] ";
+        String estimate = t.getEstimateMinutes() == 0 ? "" : ", ~" + t.getEstimateMinutes() + " min";
+        CheckBox cb = new CheckBox(priority + t.getName() + ": " + t.getDescription() + " (due " + dtf.format(t.getDate()) + estimate + ")");
+        cb.setSelected(t.isComplete());
+        cb.setOnAction(e -> store.setComplete(t, cb.isSelected())); // Listener persists and refreshes
+
+        return new HBox(10, pick, cb);
+    }
+
+    /**
+     * Creates a file chooser for CSV and iCalendar files.
+     *
+     * @param title the dialog title
+     * @return the chooser
+     */
+    private FileChooser transferChooser(String title) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle(title);
+        chooser.getExtensionFilters().addAll(
+            new FileChooser.ExtensionFilter("CSV files", "*.csv"),
+            new FileChooser.ExtensionFilter("iCalendar files", "*.ics"));
+        return chooser;
+    }
+
+    /**
+     * Reads a CSV or iCalendar file on a background thread, then adds every
+     * parsed task in one batch (one save, one redraw) to the list that was
+     * active when the import started.
+     *
+     * @param file the file to import
+     */
+    private void importTasks(File file) {
+        // The list shown when the import starts, even if the user switches lists while it runs
+        String target = activeList.getName();
+        statusLabel.setText("Importing " + file.getName() + " into " + target + "...");
+        Thread worker = new Thread(() -> {
+            try {
+                TaskTransfer.Result result = TaskTransfer.importFile(file.toPath());
+                Platform.runLater(() -> {
+                    TaskStore targetStore = workspace.open(target).getStore(); // Reopened if it was closed meanwhile
+                    // Tasks that kept their id (iCalendar UID) and are already here are not added twice
+                    Set<String> ids = new HashSet<>();
+                    for (Task t : targetStore.getTasks()) {
+                        ids.add(t.getId());
+                    }
+                    List<Task> fresh = new ArrayList<>();
+                    for (Task t : result.getTasks()) {
+                        if (!t.hasId() || ids.add(t.getId())) {
+                            fresh.add(t);
+                        }
+                    }
+                    targetStore.addAll(fresh);
+                    String msg = "Imported " + fresh.size() + " tasks into " + target;
+                    if (fresh.size() < result.getTasks().size()) {
+                        msg += ", " + (result.getTasks().size() - fresh.size()) + " already in the list";
+                    }
+                    if (!result.getErrors().isEmpty()) {
+                        msg += ", skipped " + result.getErrors().size() + " (" + result.getErrors().get(0) + ")";
+                    }
+                    statusLabel.setText(msg);
+                });
+            } catch (IOException ex) {
+                ex.printStackTrace();
+                Platform.runLater(() -> statusLabel.setText("Import failed: " + ex.getMessage()));
+            }
+        }, "task-import");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Writes every task to a CSV or iCalendar file.
+     *
+     * @param file the file to write
+     */
+    private void exportTasks(File file) {
+        try {
+            TaskTransfer.exportFile(store.getTasks(), file.toPath());
+            statusLabel.setText("Exported " + store.size() + " tasks");
+        } catch (IOException ex) {
+            ex.printStackTrace();
+            statusLabel.setText("Export failed: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Pushes local edits to the shared folder, if sync is on.
+     */
+    private void pushChanges() {
+        try {
+            sync.push();
+        } catch (IOException ex) {
+            ex.printStackTrace();
+            statusLabel.setText("Sync push failed: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Pushes local edits and applies other copies' edits, if sync is on.
+     */
+    private void syncNow() {
+        if (sync.getFolder() == null) {
+            return;
+        }
+        try {
+            int sent = sync.pendingChanges();
+            sync.push();
+            int received = sync.pull(); // Remote edits arrive as one batch: one save, one redraw
+            String skipped = sync.skippedChanges() > 0 ? ", skipped " + sync.skippedChanges() + " invalid" : "";
+            statusLabel.setText("Synced: sent " + sent + ", received " + received + " changes" + skipped);
+        } catch (IOException | RuntimeException ex) {
+            ex.printStackTrace();
+            statusLabel.setText("Sync failed: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Loads the saved filter texts, or an empty list if there are none.
+     *
+     * @return the saved filters
      */
     @SuppressWarnings("unchecked")
-    private List<Task> loadOrSeedTasks() {
-        File file = new File(FILENAME);
+    private List<String> loadFilters() {
+        File file = new File(FILTERS_FILENAME);
         if (file.exists()) {
             try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(file))) {
-                return (List<Task>) ois.readObject();
+                return (List<String>) ois.readObject();
             } catch (Exception e) {
                 e.printStackTrace();
             }
@@ -225,22 +893,13 @@ public class Main extends Application {
     }
 
     /**
-     * Saves the current allTasks list to disk via serialization.
-     */
-    private void saveTasks() {
-        saveTasks(this.allTasks);
-    }
-
-    /**
-     * Serializes the provided task list to the designated FILENAME.
-     *
-     * @param tasksToSave the List<Task> to write out
+     * Writes the saved filter texts to FILTERS_FILENAME.
      */
-    private void saveTasks(List<Task> tasksToSave) {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(FILENAME))) {
-            oos.writeObject(tasksToSave);
+    private void saveFilters() {
+        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(FILTERS_FILENAME))) {
+            oos.writeObject(new ArrayList<>(savedFilters));
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,96 @@
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a callback shortly after each local midnight.
+ *
+ * The delay is recomputed from the clock every time, so daylight saving
+ * changes are handled. Timer delays do not advance while the computer is
+ * asleep, so the date is also re-checked once a minute; after waking past
+ * midnight the callback runs within a minute. The callback runs on a
+ * background thread; JavaFX callers should hop back with Platform.runLater.
+ */
+public class MidnightRollover {
+    private static final Duration SLACK = Duration.ofSeconds(1); // Fire just after midnight so "today" has really changed
+    private static final Duration CHECK_EVERY = Duration.ofMinutes(1); // How often the date is re-read, to catch up after sleep
+
+    private final Clock clock;
+    private final Runnable onNewDay;
+    private final ScheduledExecutorService timer;
+    private LocalDate lastDay; // the day the callback last ran for (or the start day); only touched on the timer thread
+
+    /**
+     * Creates a rollover timer. Call {@link #start()} to begin.
+     *
+     * @param clock    the clock that decides when midnight is
+     * @param onNewDay what to run after each midnight
+     */
+    public MidnightRollover(Clock clock, Runnable onNewDay) {
+        this.clock = clock;
+        this.onNewDay = onNewDay;
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "midnight-rollover");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Returns how long it is from the clock's current instant until the
+     * start of the next day in the clock's zone.
+     *
+     * @param clock the clock to read
+     * @return the time left until the next midnight
+     */
+    public static Duration untilNextMidnight(Clock clock) {
+        ZonedDateTime now = ZonedDateTime.now(clock);
+        ZonedDateTime midnight = LocalDate.now(clock).plusDays(1).atStartOfDay(clock.getZone());
+        return Duration.between(now, midnight);
+    }
+
+    /**
+     * Schedules the first run at the next midnight.
+     */
+    public void start() {
+        lastDay = LocalDate.now(clock);
+        scheduleNext();
+        long every = CHECK_EVERY.toMillis();
+        timer.scheduleAtFixedRate(this::checkDay, every, every, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Cancels any pending run and stops the timer thread.
+     */
+    public void stop() {
+        timer.shutdownNow();
+    }
+
+    /**
+     * Runs the callback if the date has changed since it last ran.
+     */
+    private void checkDay() {
+        LocalDate now = LocalDate.now(clock);
+        if (!now.equals(lastDay)) {
+            lastDay = now;
+            onNewDay.run();
+        }
+    }
+
+    private void scheduleNext() {
+        long delay = untilNextMidnight(clock).plus(SLACK).toMillis();
+        timer.schedule(() -> {
+            try {
+                checkDay();
+            } finally {
+                if (!timer.isShutdown()) {
+                    scheduleNext();
+                }
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,177 @@
+import java.util.*;
+
+/**
+ * Answers "what should I do next?" from an indexed binary heap of open tasks.
+ * <p>
+ * Tasks are ordered by priority (highest first), then by due date (earliest,
+ * i.e. most urgent, first), then by estimate (quick wins first). The heap keeps
+ * each task's slot in a map, so a toggle or edit repositions just that task in
+ * O(log n), and {@link #top(int)} walks only the top of the heap, costing
+ * O(k log k) for k results instead of sorting every open task.
+ * https://algs4.cs.princeton.edu/24pq/
+ */
+public class NextUpQueue implements TaskStore.Listener {
+    /** Order in which open tasks should be worked on. */
+    public static final Comparator<Task> ORDER = Comparator
+        .comparingInt(Task::getPriority).reversed()
+        .thenComparing(Task::getDate)
+        .thenComparingInt(Task::getEstimateMinutes);
+
+    private final ArrayList<Task> heap = new ArrayList<>();
+    private final Map<Task, Integer> slot = new IdentityHashMap<>();
+
+    /**
+     * Builds the heap from the store's open tasks and keeps it up to date.
+     * @param store the store to follow
+     */
+    public NextUpQueue(TaskStore store) {
+        for (Task t : store.getTasks()) {
+            if (!t.isComplete()) {
+                slot.put(t, heap.size());
+                heap.add(t);
+            }
+        }
+        // Bottom-up heapify is O(n)
+        for (int i = heap.size() / 2 - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+        store.addListener(this);
+    }
+
+    @Override
+    public void tasksChanged(TaskChange change) {
+        for (Task t : change.getRemoved()) {
+            remove(t);
+        }
+        for (Task t : change.getUpdated()) {
+            if (t.isComplete()) {
+                remove(t);
+            } else if (slot.containsKey(t)) {
+                reposition(slot.get(t));
+            } else {
+                insert(t);
+            }
+        }
+        for (Task t : change.getAdded()) {
+            if (!t.isComplete()) {
+                insert(t);
+            }
+        }
+    }
+
+    // Queries
+
+    /**
+     * Returns the most pressing open task.
+     * @return the first task, or null if nothing is open
+     */
+    public Task peek() {
+        return heap.isEmpty() ? null : heap.get(0);
+    }
+
+    /**
+     * Returns up to k open tasks in the order they should be done.
+     * <p>
+     * A small frontier heap of candidate slots starts at the root; each step
+     * takes the best candidate and offers its two children, so only O(k) slots
+     * of the big heap are looked at.
+     *
+     * @param k how many tasks to return
+     * @return the first k tasks, best first
+     */
+    public List<Task> top(int k) {
+        List<Task> out = new ArrayList<>(Math.min(k, heap.size()));
+        if (heap.isEmpty() || k <= 0) {
+            return out;
+        }
+        PriorityQueue<Integer> frontier = new PriorityQueue<>((a, b) -> ORDER.compare(heap.get(a), heap.get(b)));
+        frontier.add(0);
+        while (out.size() < k && !frontier.isEmpty()) {
+            int i = frontier.poll();
+            out.add(heap.get(i));
+            for (int c = 2 * i + 1; c <= 2 * i + 2 && c < heap.size(); c++) {
+                frontier.add(c);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Returns the number of open tasks.
+     * @return the open task count
+     */
+    public int size() {
+        return heap.size();
+    }
+
+    // Heap maintenance
+
+    private void insert(Task t) {
+        slot.put(t, heap.size());
+        heap.add(t);
+        siftUp(heap.size() - 1);
+    }
+
+    private void remove(Task t) {
+        Integer i = slot.remove(t);
+        if (i == null) {
+            return;
+        }
+        int last = heap.size() - 1;
+        Task moved = heap.remove(last);
+        if (i != last) {
+            heap.set(i, moved);
+            slot.put(moved, i);
+            reposition(i);
+        }
+    }
+
+    private void reposition(int i) {
+        if (!siftUp(i)) {
+            siftDown(i);
+        }
+    }
+
+    private boolean siftUp(int i) {
+        boolean moved = false;
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (ORDER.compare(heap.get(i), heap.get(parent)) >= 0) {
+                break;
+            }
+            swap(i, parent);
+            i = parent;
+            moved = true;
+        }
+        return moved;
+    }
+
+    private void siftDown(int i) {
+        int n = heap.size();
+        while (true) {
+            int best = i;
+            int l = 2 * i + 1;
+            int r = l + 1;
+            if (l < n && ORDER.compare(heap.get(l), heap.get(best)) < 0) {
+                best = l;
+            }
+            if (r < n && ORDER.compare(heap.get(r), heap.get(best)) < 0) {
+                best = r;
+            }
+            if (best == i) {
+                return;
+            }
+            swap(i, best);
+            i = best;
+        }
+    }
+
+    private void swap(int a, int b) {
+        Task ta = heap.get(a);
+        Task tb = heap.get(b);
+        heap.set(a, tb);
+        heap.set(b, ta);
+        slot.put(tb, a);
+        slot.put(ta, b);
+    }
+}
@@ -1,13 +1,24 @@
 import java.io.Serializable;
 import java.time.LocalDate;
+import java.util.UUID;
 
 public class Task implements Serializable {
     private static final long serialVersionUID = 1L;
 
+    // Priority levels; higher comes first
+    public static final int PRIORITY_NONE = 0;
+    public static final int PRIORITY_LOW = 1;
+    public static final int PRIORITY_MEDIUM = 2;
+    public static final int PRIORITY_HIGH = 3;
+    private static final String[] PRIORITY_NAMES = {"None", "Low", "Medium", "High"};
+
+    private String id; // stable across renames and machines; null in tasks saved before ids existed
     private String name;
     private String description;
     private LocalDate dueDate;
     private boolean complete;
+    private int priority;        // PRIORITY_NONE unless set; older saved tasks load as 0
+    private int estimateMinutes; // expected effort in minutes, 0 if unknown
 
     /**
      * Constructs a new Task.
@@ -17,6 +28,19 @@ public class Task implements Serializable {
      * @param dueDate     the due date as a LocalDate
      */
     public Task(String name, String description, LocalDate dueDate) {
+        this(UUID.randomUUID().toString(), name, description, dueDate);
+    }
+
+    /**
+     * Constructs a Task with a known id, e.g. one received from another machine.
+     *
+     * @param id          the stable task id
+     * @param name        the task name
+     * @param description the task description
+     * @param dueDate     the due date as a LocalDate
+     */
+    public Task(String id, String name, String description, LocalDate dueDate) {
+        this.id = id;
         this.name = name;
         this.description = description;
         this.dueDate = dueDate;
@@ -30,6 +54,25 @@ public class Task implements Serializable {
 
     // Getters
 
+    /**
+     * Returns the stable id of the task. Tasks loaded from older files get
+     * one the first time it is asked for.
+     */
+    public String getId() {
+        if (id == null) {
+            id = UUID.randomUUID().toString();
+        }
+        return id;
+    }
+
+    /**
+     * Checks if the task already has an id, i.e. was not loaded from a file
+     * saved before ids existed.
+     */
+    public boolean hasId() {
+        return id != null;
+    }
+
     /**
      * Returns the name of the task.
      */
@@ -58,6 +101,34 @@ public class Task implements Serializable {
         return complete;
     }
 
+    /**
+     * Returns the priority, one of the PRIORITY_ constants.
+     */
+    public int getPriority() {
+        return priority;
+    }
+
+    /**
+     * Returns the priority as a word, e.g. "High".
+     */
+    public String getPriorityName() {
+        return priorityName(priority);
+    }
+
+    /**
+     * Returns the word for a priority level, e.g. "High" for PRIORITY_HIGH.
+     */
+    public static String priorityName(int priority) {
+        return PRIORITY_NAMES[priority];
+    }
+
+    /**
+     * Returns the estimated effort in minutes, 0 if unknown.
+     */
+    public int getEstimateMinutes() {
+        return estimateMinutes;
+    }
+
     // Setters
 
     /**
@@ -81,6 +152,32 @@ public class Task implements Serializable {
         this.dueDate = dueDate;
     }
 
+    /**
+     * Sets the priority of the task.
+     *
+     * @param priority one of the PRIORITY_ constants
+     * @throws IllegalArgumentException if priority is out of range
+     */
+    public void setPriority(int priority) {
+        if (priority < PRIORITY_NONE || priority > PRIORITY_HIGH) {
+            throw new IllegalArgumentException("Priority must be 0-3: " + priority);
+        }
+        this.priority = priority;
+    }
+
+    /**
+     * Sets the estimated effort of the task.
+     *
+     * @param estimateMinutes the effort in minutes, 0 if unknown
+     * @throws IllegalArgumentException if estimateMinutes is negative
+     */
+    public void setEstimateMinutes(int estimateMinutes) {
+        if (estimateMinutes < 0) {
+            throw new IllegalArgumentException("Estimate cannot be negative: " + estimateMinutes);
+        }
+        this.estimateMinutes = estimateMinutes;
+    }
+
     /** Marks the task as complete. */
     public void markComplete() {
         complete = true;
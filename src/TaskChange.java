@@ -0,0 +1,140 @@
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Describes everything that happened to a TaskStore during one mutation or batch.
+ *
+ * Listeners receive exactly one TaskChange per top-level mutation, so a batch of
+ * many edits is reported as a single change. Updated tasks keep a copy of the
+ * state they had before the batch so incremental views can move them between buckets.
+ */
+public class TaskChange {
+    private final Set<Task> added = new LinkedHashSet<>();
+    private final Set<Task> removed = new LinkedHashSet<>();
+    private final Map<Task, Snapshot> updated = new IdentityHashMap<>();
+
+    /**
+     * The field values a task held before it was first touched in the batch.
+     */
+    static final class Snapshot {
+        final String name;
+        final String description;
+        final LocalDate dueDate;
+        final boolean complete;
+        final int priority;
+        final int estimateMinutes;
+
+        Snapshot(Task t) {
+            this.name = t.getName();
+            this.description = t.getDescription();
+            this.dueDate = t.getDate();
+            this.complete = t.isComplete();
+            this.priority = t.getPriority();
+            this.estimateMinutes = t.getEstimateMinutes();
+        }
+
+        /**
+         * Writes the captured values back into the task.
+         * @param t the task to restore
+         */
+        void restore(Task t) {
+            t.setName(name);
+            t.setDescription(description);
+            t.setDueDate(dueDate);
+            if (complete) t.markComplete(); else t.markIncomplete();
+            t.setPriority(priority);
+            t.setEstimateMinutes(estimateMinutes);
+        }
+    }
+
+    // Recording (used by TaskStore)
+
+    void recordAdded(Task t) {
+        // Adding back a task removed earlier in the same batch is an update, not an add
+        if (removed.remove(t)) {
+            return;
+        }
+        added.add(t);
+    }
+
+    void recordRemoved(Task t) {
+        // Removing a task that was added in the same batch cancels out
+        if (added.remove(t)) {
+            return;
+        }
+        removed.add(t);
+    }
+
+    void recordUpdate(Task t) {
+        // New tasks have no earlier state worth keeping; only the first snapshot counts
+        if (!added.contains(t) && !updated.containsKey(t)) {
+            updated.put(t, new Snapshot(t));
+        }
+    }
+
+    Snapshot snapshotOf(Task t) {
+        return updated.get(t);
+    }
+
+    // Getters
+
+    /**
+     * Returns the tasks added to the store.
+     * @return an unmodifiable set of added tasks
+     */
+    public Set<Task> getAdded() {
+        return Collections.unmodifiableSet(added);
+    }
+
+    /**
+     * Returns the tasks removed from the store.
+     * @return an unmodifiable set of removed tasks
+     */
+    public Set<Task> getRemoved() {
+        return Collections.unmodifiableSet(removed);
+    }
+
+    /**
+     * Returns the tasks that stayed in the store but had a field changed.
+     * Tasks removed later in the same batch are not included.
+     * @return the updated tasks
+     */
+    public Set<Task> getUpdated() {
+        Set<Task> live = new LinkedHashSet<>(updated.keySet());
+        live.removeAll(removed);
+        return Collections.unmodifiableSet(live);
+    }
+
+    /**
+     * Returns the due date an updated or removed task had before the change.
+     * @param t the task to look up
+     * @return the earlier due date, or the current one if the task was not updated
+     */
+    public LocalDate getPreviousDate(Task t) {
+        Snapshot s = updated.get(t);
+        return s == null ? t.getDate() : s.dueDate;
+    }
+
+    /**
+     * Returns whether an updated or removed task was complete before the change.
+     * @param t the task to look up
+     * @return the earlier completion state, or the current one if the task was not updated
+     */
+    public boolean wasComplete(Task t) {
+        Snapshot s = updated.get(t);
+        return s == null ? t.isComplete() : s.complete;
+    }
+
+    /**
+     * Checks if the change did nothing at all.
+     * @return true if no task was added, removed or updated
+     */
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty() && updated.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "TaskChange[added=" + added.size() + ", removed=" + removed.size() + ", updated=" + updated.size() + "]";
+    }
+}
@@ -0,0 +1,125 @@
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Keeps the tasks of a TaskStore grouped by due date so views can ask for
+ * "everything due on this day" or "everything in this range" without
+ * walking the whole task list.
+ *
+ * The index listens to the store and moves tasks between day buckets as
+ * they are added, removed or rescheduled. Register it before any listener
+ * that reads from it.
+ */
+public class TaskDateIndex implements TaskStore.Listener {
+    private final TreeMap<LocalDate, List<Task>> byDate = new TreeMap<>();
+    private int size;
+
+    /**
+     * Builds an index over the store's current tasks and keeps it up to date.
+     * @param store the store to index
+     */
+    public TaskDateIndex(TaskStore store) {
+        for (Task t : store.getTasks()) {
+            insert(t, t.getDate());
+        }
+        store.addListener(this);
+    }
+
+    @Override
+    public void tasksChanged(TaskChange change) {
+        for (Task t : change.getRemoved()) {
+            delete(t, change.getPreviousDate(t));
+        }
+        for (Task t : change.getUpdated()) {
+            LocalDate before = change.getPreviousDate(t);
+            if (!before.equals(t.getDate())) {
+                delete(t, before);
+                insert(t, t.getDate());
+            }
+        }
+        for (Task t : change.getAdded()) {
+            insert(t, t.getDate());
+        }
+    }
+
+    // Queries
+
+    /**
+     * Returns the tasks due on one day.
+     * @param day the day to look up
+     * @return a read-only list, empty if nothing is due
+     */
+    public List<Task> tasksOn(LocalDate day) {
+        List<Task> bucket = byDate.get(day);
+        return bucket == null ? Collections.emptyList() : Collections.unmodifiableList(bucket);
+    }
+
+    /**
+     * Returns the day buckets in [from, toExclusive), in date order.
+     * Days with no tasks are not present.
+     *
+     * @param from the first day included
+     * @param toExclusive the first day excluded
+     * @return a read-only view of the matching buckets
+     */
+    public NavigableMap<LocalDate, List<Task>> range(LocalDate from, LocalDate toExclusive) {
+        return Collections.unmodifiableNavigableMap(byDate.subMap(from, true, toExclusive, false));
+    }
+
+    /**
+     * Returns the day buckets in [from, to], in date order. A null bound
+     * leaves that side open.
+     *
+     * @param from the first day included, or null
+     * @param to the last day included, or null
+     * @return a read-only view of the matching buckets
+     */
+    public NavigableMap<LocalDate, List<Task>> between(LocalDate from, LocalDate to) {
+        NavigableMap<LocalDate, List<Task>> view = byDate;
+        if (from != null) {
+            view = view.tailMap(from, true);
+        }
+        if (to != null) {
+            view = view.headMap(to, true);
+        }
+        return Collections.unmodifiableNavigableMap(view);
+    }
+
+    /**
+     * Returns every task due strictly before the given day, oldest first.
+     * @param day the cut-off day
+     * @return a new list of the earlier tasks
+     */
+    public List<Task> tasksBefore(LocalDate day) {
+        List<Task> out = new ArrayList<>();
+        for (List<Task> bucket : byDate.headMap(day, false).values()) {
+            out.addAll(bucket);
+        }
+        return out;
+    }
+
+    /**
+     * Returns the number of indexed tasks.
+     * @return the task count
+     */
+    public int size() {
+        return size;
+    }
+
+    // Internal helpers
+
+    private void insert(Task t, LocalDate day) {
+        byDate.computeIfAbsent(day, d -> new ArrayList<>()).add(t);
+        size++;
+    }
+
+    private void delete(Task t, LocalDate day) {
+        List<Task> bucket = byDate.get(day);
+        if (bucket != null && bucket.remove(t)) {
+            size--;
+            if (bucket.isEmpty()) {
+                byDate.remove(day);
+            }
+        }
+    }
+}
@@ -0,0 +1,178 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.*;
+
+/**
+ * One named task list, e.g. "Work" or "Home", backed by its own snapshot file.
+ * <p>
+ * Nothing is read until {@link #open()} is called. Opening loads the file,
+ * builds the list's store and date index, and saves the file again after
+ * every change. {@link #close()} drops the store and index so an idle list
+ * costs no memory; opening it again reloads it from disk.
+ */
+public class TaskList {
+    private final String name;
+    private final File file;
+    private TaskStore store;
+    private TaskDateIndex index;
+    private TaskStore.Listener saver;
+    private List<String> damage = new ArrayList<>();
+    private File backup;
+
+    /**
+     * Creates a closed list.
+     *
+     * @param name the name shown to the user
+     * @param file the snapshot file the tasks live in
+     */
+    public TaskList(String name, File file) {
+        this.name = name;
+        this.file = file;
+    }
+
+    // Getters
+
+    /**
+     * Returns the list's name.
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the file the list is saved to.
+     * @return the snapshot file
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Checks if the list is loaded.
+     * @return true between {@link #open()} and {@link #close()}
+     */
+    public boolean isOpen() {
+        return store != null;
+    }
+
+    /**
+     * Returns the list's store.
+     * @return the store, or null if the list is closed
+     */
+    public TaskStore getStore() {
+        return store;
+    }
+
+    /**
+     * Returns the list's date index.
+     * @return the index, or null if the list is closed
+     */
+    public TaskDateIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * Returns the list's date index without opening the list. A closed list
+     * is read into a throwaway index that is not kept, saved or updated.
+     *
+     * @return the live index if open, otherwise a read-only copy from disk
+     */
+    public TaskDateIndex peekIndex() {
+        if (index != null) {
+            return index;
+        }
+        return new TaskDateIndex(new TaskStore(TaskSnapshot.load(file).getTasks()));
+    }
+
+    /**
+     * Returns what could not be read the last time the list was opened.
+     * @return one message per damaged chunk, empty if the file was intact
+     */
+    public List<String> getDamage() {
+        return damage;
+    }
+
+    /**
+     * Returns the copy of the damaged file made on the last open.
+     * @return the backup, or null if the file was intact
+     */
+    public File getBackup() {
+        return backup;
+    }
+
+    // Lifecycle
+
+    /**
+     * Loads the list if it is not loaded yet. If any chunk is damaged, the
+     * intact ones are kept and the damaged file is copied aside before the
+     * next save can replace it.
+     */
+    public void open() {
+        if (store != null) {
+            return;
+        }
+        TaskSnapshot.Result result = TaskSnapshot.load(file);
+        damage = result.getDamage();
+        backup = null;
+        if (result.isDamaged()) {
+            backup = new File(file.getPath() + ".damaged-" + System.currentTimeMillis());
+            try {
+                Files.copy(file.toPath(), backup.toPath());
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        // Tasks from files saved before ids existed get one now, and it is saved
+        // straight away so every launch (and every sync) sees the same id
+        boolean assignedIds = false;
+        for (Task t : result.getTasks()) {
+            if (!t.hasId()) {
+                t.getId();
+                assignedIds = true;
+            }
+        }
+        store = new TaskStore(result.getTasks());
+        index = new TaskDateIndex(store);
+        // One save per change, however many tasks a batch touched
+        saver = change -> save();
+        store.addListener(saver);
+        if (assignedIds) {
+            save();
+        }
+    }
+
+    /**
+     * Unloads the list. Every change has already been saved, so nothing is
+     * written here.
+     */
+    public void close() {
+        if (store == null) {
+            return;
+        }
+        store.removeListener(saver);
+        store = null;
+        index = null;
+        saver = null;
+    }
+
+    /**
+     * Writes the list's tasks to its file as a chunked snapshot.
+     */
+    public void save() {
+        if (store == null) {
+            return;
+        }
+        try {
+            TaskSnapshot.save(new ArrayList<>(store.getTasks()), file);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
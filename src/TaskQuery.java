@@ -0,0 +1,206 @@
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+/**
+ * A filter over tasks: an optional due-date range, an optional completion
+ * state, and any number of words that must appear in the name or description.
+ * All parts must match.
+ * <p>
+ * Queries can be built in code:
+ * <pre>new TaskQuery().dueBetween(from, to).complete(false).withTerm("report")</pre>
+ * or parsed from the filter box with {@link #parse(String, LocalDate)}.
+ * TaskQueryEngine decides how to run them.
+ */
+public class TaskQuery {
+    private LocalDate from;   // inclusive, null for no lower bound
+    private LocalDate to;     // inclusive, null for no upper bound
+    private Boolean complete; // null for either state
+    private final List<String> terms = new ArrayList<>();
+    private String text = ""; // what the user typed, for tab titles
+
+    // Building
+
+    /**
+     * Restricts the query to tasks due in [from, to]. Either end may be null.
+     * @param from the first day included, or null
+     * @param to the last day included, or null
+     * @return this query
+     */
+    public TaskQuery dueBetween(LocalDate from, LocalDate to) {
+        this.from = from;
+        this.to = to;
+        return this;
+    }
+
+    /**
+     * Restricts the query to completed or to open tasks.
+     * @param complete true for completed tasks, false for open ones
+     * @return this query
+     */
+    public TaskQuery complete(boolean complete) {
+        this.complete = complete;
+        return this;
+    }
+
+    /**
+     * Requires a word starting with term in the name or description.
+     * Terms with several words add each word.
+     * @param term the text to look for (any case)
+     * @return this query
+     */
+    public TaskQuery withTerm(String term) {
+        terms.addAll(TaskTextIndex.words(term));
+        return this;
+    }
+
+    // Parsing
+
+    /**
+     * Parses the filter syntax used by the filter box. Space-separated parts:
+     * <ul>
+     * <li>{@code due:2025-05-06} - due on that day</li>
+     * <li>{@code due:2025-05-01..2025-05-31} - due in that range; either end may be left out</li>
+     * <li>{@code today}, {@code tomorrow}, {@code yesterday} may be used in place of a date</li>
+     * <li>{@code overdue} - open and due before today</li>
+     * <li>{@code is:open} or {@code is:done}</li>
+     * <li>anything else is a word to find in the name or description</li>
+     * </ul>
+     *
+     * @param text the filter text
+     * @param today the date "today" refers to
+     * @return the parsed query
+     * @throws IllegalArgumentException if a date or keyword is malformed
+     */
+    public static TaskQuery parse(String text, LocalDate today) {
+        TaskQuery q = new TaskQuery();
+        q.text = text.trim();
+        for (String part : q.text.split("\\s+")) {
+            String lower = part.toLowerCase(Locale.ROOT);
+            if (lower.isEmpty()) {
+                continue;
+            }
+            if (lower.startsWith("due:")) {
+                String range = lower.substring(4);
+                int dots = range.indexOf("..");
+                if (dots < 0) {
+                    LocalDate d = parseDate(range, today);
+                    q.dueBetween(d, d);
+                } else {
+                    String a = range.substring(0, dots);
+                    String b = range.substring(dots + 2);
+                    q.dueBetween(a.isEmpty() ? null : parseDate(a, today), b.isEmpty() ? null : parseDate(b, today));
+                }
+            } else if (lower.equals("overdue")) {
+                q.dueBetween(null, today.minusDays(1)).complete(false);
+            } else if (lower.equals("is:open")) {
+                q.complete(false);
+            } else if (lower.equals("is:done")) {
+                q.complete(true);
+            } else if (lower.startsWith("is:")) {
+                throw new IllegalArgumentException("Unknown filter '" + part + "', use is:open or is:done");
+            } else {
+                q.withTerm(part);
+            }
+        }
+        return q;
+    }
+
+    private static LocalDate parseDate(String s, LocalDate today) {
+        switch (s) {
+            case "today": return today;
+            case "tomorrow": return today.plusDays(1);
+            case "yesterday": return today.minusDays(1);
+            default:
+                try {
+                    return LocalDate.parse(s);
+                } catch (DateTimeParseException e) {
+                    throw new IllegalArgumentException("Bad date '" + s + "', expected yyyy-MM-dd", e);
+                }
+        }
+    }
+
+    // Getters
+
+    /**
+     * Returns the lower due-date bound, or null.
+     * @return the first day included
+     */
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    /**
+     * Returns the upper due-date bound, or null.
+     * @return the last day included
+     */
+    public LocalDate getTo() {
+        return to;
+    }
+
+    /**
+     * Returns the required completion state, or null for either.
+     * @return the completion filter
+     */
+    public Boolean getComplete() {
+        return complete;
+    }
+
+    /**
+     * Returns the lower-case words that must appear.
+     * @return a read-only list of terms
+     */
+    public List<String> getTerms() {
+        return Collections.unmodifiableList(terms);
+    }
+
+    /**
+     * Checks if the query restricts the due date at all.
+     * @return true if either bound is set
+     */
+    public boolean hasDateRange() {
+        return from != null || to != null;
+    }
+
+    // Matching
+
+    /**
+     * Checks a task against every part of the query, cheapest checks first,
+     * stopping at the first one that fails.
+     * @param t the task to test
+     * @return true if the task matches
+     */
+    public boolean matches(Task t) {
+        if (complete != null && t.isComplete() != complete) {
+            return false;
+        }
+        LocalDate d = t.getDate();
+        if ((from != null && d.isBefore(from)) || (to != null && d.isAfter(to))) {
+            return false;
+        }
+        if (terms.isEmpty()) {
+            return true;
+        }
+        Set<String> words = TaskTextIndex.words(t);
+        for (String term : terms) {
+            if (!anyStartsWith(words, term)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean anyStartsWith(Set<String> words, String prefix) {
+        for (String w : words) {
+            if (w.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return text.isEmpty() ? "all tasks" : text;
+    }
+}
@@ -0,0 +1,146 @@
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Runs TaskQuery filters against the store's indexes.
+ * <p>
+ * For each query the planner prices every access path it could start from:
+ * the date index for a due-date range, the status index for a completion state,
+ * the text index for each term, or a plain scan of the store. Estimates come
+ * from the indexes themselves (the date estimate is an O(log n) range count on
+ * TaskStats), and the cheapest path supplies the candidates. Every candidate is
+ * then checked with {@link TaskQuery#matches(Task)}, which stops at the first
+ * part that fails.
+ */
+public class TaskQueryEngine {
+    private final TaskStore store;
+    private final TaskDateIndex dateIndex;
+    private final TaskStatusIndex statusIndex;
+    private final TaskTextIndex textIndex;
+    private final TaskStats stats;
+
+    /**
+     * Creates an engine over indexes that already follow the store.
+     *
+     * @param store the store to query
+     * @param dateIndex tasks by due date
+     * @param statusIndex tasks by completion state
+     * @param textIndex tasks by word
+     * @param stats range counts used to price the date index
+     */
+    public TaskQueryEngine(TaskStore store, TaskDateIndex dateIndex, TaskStatusIndex statusIndex,
+                           TaskTextIndex textIndex, TaskStats stats) {
+        this.store = store;
+        this.dateIndex = dateIndex;
+        this.statusIndex = statusIndex;
+        this.textIndex = textIndex;
+        this.stats = stats;
+    }
+
+    /**
+     * The access path chosen for a query.
+     */
+    public static final class Plan {
+        private final String source;
+        private final long estimate;
+
+        Plan(String source, long estimate) {
+            this.source = source;
+            this.estimate = estimate;
+        }
+
+        /**
+         * Returns which index the candidates come from: "date", "status", "text:&lt;term&gt;" or "scan".
+         * @return the access path
+         */
+        public String getSource() {
+            return source;
+        }
+
+        /**
+         * Returns how many candidates the path was expected to produce.
+         * @return the estimate
+         */
+        public long getEstimate() {
+            return estimate;
+        }
+
+        @Override
+        public String toString() {
+            return source + " (~" + estimate + " candidates)";
+        }
+    }
+
+    /**
+     * Picks the access path with the fewest expected candidates.
+     * @param q the query to plan
+     * @return the chosen plan
+     */
+    public Plan plan(TaskQuery q) {
+        Plan best = new Plan("scan", store.size());
+        if (q.hasDateRange()) {
+            LocalDate from = q.getFrom() == null ? LocalDate.MIN : q.getFrom();
+            LocalDate to = q.getTo() == null ? LocalDate.MAX : q.getTo();
+            best = cheaper(best, new Plan("date", Math.max(0, stats.totalBetween(from, to))));
+        }
+        if (q.getComplete() != null) {
+            best = cheaper(best, new Plan("status", statusIndex.count(q.getComplete())));
+        }
+        for (String term : q.getTerms()) {
+            best = cheaper(best, new Plan("text:" + term, textIndex.estimate(term)));
+            if (best.estimate == 0) {
+                break; // nothing can match, no need to price the rest
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Runs a query.
+     * @param q the query to run
+     * @return the matching tasks, ordered by due date
+     */
+    public List<Task> run(TaskQuery q) {
+        if (q.getFrom() != null && q.getTo() != null && q.getFrom().isAfter(q.getTo())) {
+            return new ArrayList<>();
+        }
+        Plan plan = plan(q);
+        List<Task> out = new ArrayList<>();
+        if (plan.estimate == 0) {
+            return out;
+        }
+        for (Task t : candidates(plan, q)) {
+            if (q.matches(t)) {
+                out.add(t);
+            }
+        }
+        // The date index already yields date order; other paths need sorting
+        if (!plan.source.equals("date")) {
+            out.sort(Comparator.comparing(Task::getDate));
+        }
+        return out;
+    }
+
+    // Internal helpers
+
+    private static Plan cheaper(Plan a, Plan b) {
+        return b.estimate < a.estimate ? b : a;
+    }
+
+    private Iterable<Task> candidates(Plan plan, TaskQuery q) {
+        if (plan.source.equals("date")) {
+            List<Task> tasks = new ArrayList<>();
+            for (List<Task> bucket : dateIndex.between(q.getFrom(), q.getTo()).values()) {
+                tasks.addAll(bucket);
+            }
+            return tasks;
+        }
+        if (plan.source.equals("status")) {
+            return statusIndex.tasks(q.getComplete());
+        }
+        if (plan.source.startsWith("text:")) {
+            return textIndex.lookup(plan.source.substring(5));
+        }
+        return store.getTasks();
+    }
+}
@@ -0,0 +1,263 @@
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Saves and loads the task list as a file of independent, checksummed chunks.
+ * <p>
+ * Layout: a file header ({@code KIWI}, version, chunk count) followed by one
+ * frame per chunk: a frame marker, the number of tasks, the compressed length,
+ * the CRC32 of the compressed bytes, and the bytes (a deflated, serialized
+ * list of up to {@link #CHUNK_SIZE} tasks).
+ * <p>
+ * Chunks are encoded and decoded in parallel on the common fork-join pool,
+ * so loading scales with the number of cores. A chunk whose checksum or
+ * contents are bad is skipped and reported, and the rest still load. Files in
+ * the old single-ObjectOutputStream format are still read. Saves go to a
+ * temporary file first and are then moved into place, so a crash mid-save
+ * leaves the previous file intact.
+ */
+public class TaskSnapshot {
+    static final int CHUNK_SIZE = 4096; // tasks per chunk
+    private static final int FILE_MAGIC = 0x4B495749;  // "KIWI"
+    private static final int FRAME_MAGIC = 0x43484E4B; // "CHNK"
+    private static final int VERSION = 1;
+
+    /**
+     * The tasks that loaded plus a message for every chunk that did not.
+     */
+    public static final class Result {
+        private final List<Task> tasks;
+        private final List<String> damage;
+
+        Result(List<Task> tasks, List<String> damage) {
+            this.tasks = tasks;
+            this.damage = damage;
+        }
+
+        /**
+         * Returns the tasks from every intact chunk, in saved order.
+         * @return the tasks
+         */
+        public List<Task> getTasks() {
+            return tasks;
+        }
+
+        /**
+         * Returns one message per chunk that was corrupt or missing.
+         * @return the damage report, empty if the file was intact
+         */
+        public List<String> getDamage() {
+            return damage;
+        }
+
+        /**
+         * Checks if anything was lost while loading.
+         * @return true if at least one chunk failed
+         */
+        public boolean isDamaged() {
+            return !damage.isEmpty();
+        }
+    }
+
+    /**
+     * One chunk as stored: what the frame says plus the compressed bytes.
+     */
+    private static final class Frame {
+        final int index;
+        final int count;
+        final long crc;
+        final byte[] data;
+
+        Frame(int index, int count, long crc, byte[] data) {
+            this.index = index;
+            this.count = count;
+            this.crc = crc;
+            this.data = data;
+        }
+    }
+
+    // Save
+
+    /**
+     * Writes the tasks to a file, replacing it only once the new copy is complete.
+     *
+     * @param tasks the tasks to save
+     * @param file the file to write
+     * @throws IOException if writing fails
+     */
+    public static void save(List<Task> tasks, File file) throws IOException {
+        save(tasks, file, CHUNK_SIZE);
+    }
+
+    static void save(List<Task> tasks, File file, int chunkSize) throws IOException {
+        // Encode chunks in parallel, then write them in order
+        List<ForkJoinTask<byte[]>> encoding = new ArrayList<>();
+        for (int from = 0; from < tasks.size(); from += chunkSize) {
+            List<Task> chunk = new ArrayList<>(tasks.subList(from, Math.min(tasks.size(), from + chunkSize)));
+            encoding.add(ForkJoinPool.commonPool().submit(() -> encode(chunk)));
+        }
+
+        Path target = file.toPath().toAbsolutePath();
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(FILE_MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(encoding.size());
+            for (int i = 0; i < encoding.size(); i++) {
+                byte[] data = encoding.get(i).join();
+                CRC32 crc = new CRC32();
+                crc.update(data);
+                out.writeInt(FRAME_MAGIC);
+                out.writeInt(Math.min(chunkSize, tasks.size() - i * chunkSize));
+                out.writeInt(data.length);
+                out.writeLong(crc.getValue());
+                out.write(data);
+            }
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static byte[] encode(List<Task> chunk) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(
+                new DeflaterOutputStream(bytes, new Deflater(Deflater.BEST_SPEED)))) {
+            oos.writeObject(chunk);
+        }
+        return bytes.toByteArray();
+    }
+
+    // Load
+
+    /**
+     * Reads a file written by {@link #save(List, File)} or by the old
+     * single-stream format. A missing file loads as an empty list.
+     *
+     * @param file the file to read
+     * @return the tasks plus a report of any damaged chunks
+     */
+    public static Result load(File file) {
+        List<String> damage = new ArrayList<>();
+        if (!file.exists()) {
+            return new Result(new ArrayList<>(), damage);
+        }
+        List<Frame> frames = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            in.mark(4);
+            if (in.readInt() != FILE_MAGIC) {
+                in.reset();
+                return loadLegacy(in, damage);
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                damage.add("unsupported snapshot version " + version);
+                return new Result(new ArrayList<>(), damage);
+            }
+            int expected = in.readInt();
+            readFrames(in, file.length(), expected, frames, damage);
+        } catch (IOException e) {
+            damage.add("could not read " + file + ": " + e.getMessage());
+        }
+
+        // Decode in parallel, then join in order so task order is kept
+        List<ForkJoinTask<List<Task>>> decoding = new ArrayList<>();
+        for (Frame f : frames) {
+            decoding.add(ForkJoinPool.commonPool().submit(() -> decode(f)));
+        }
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < frames.size(); i++) {
+            try {
+                tasks.addAll(decoding.get(i).join());
+            } catch (RuntimeException e) {
+                Frame f = frames.get(i);
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                damage.add("chunk " + f.index + " (" + f.count + " tasks): " + cause.getMessage());
+            }
+        }
+        return new Result(tasks, damage);
+    }
+
+    /**
+     * Reads frame headers and bytes until the end of the file or until the
+     * framing itself breaks, after which nothing further can be trusted.
+     * The header's chunk count is not checksummed, so it is checked against
+     * the frames actually found: fewer means the file was cut short, more
+     * means the count itself is damaged (the extra chunks are still loaded).
+     */
+    private static void readFrames(DataInputStream in, long fileLength, int expected,
+                                   List<Frame> frames, List<String> damage) {
+        for (int i = 0; ; i++) {
+            try {
+                if (i >= expected && atEnd(in)) {
+                    break;
+                }
+                if (in.readInt() != FRAME_MAGIC) {
+                    damage.add(i < expected ? "chunk " + i + " onwards: frame marker missing"
+                                            : "unexpected bytes after chunk " + (i - 1));
+                    return;
+                }
+                int count = in.readInt();
+                int length = in.readInt();
+                long crc = in.readLong();
+                if (length < 0 || length > fileLength) {
+                    damage.add("chunk " + i + " onwards: bad length " + length);
+                    return;
+                }
+                byte[] data = new byte[length];
+                in.readFully(data);
+                frames.add(new Frame(i, count, crc, data));
+            } catch (EOFException e) {
+                damage.add(i < expected ? "chunk " + i + " onwards: file is truncated"
+                                        : "unexpected bytes after chunk " + (i - 1));
+                return;
+            } catch (IOException e) {
+                damage.add("chunk " + i + " onwards: " + e.getMessage());
+                return;
+            }
+        }
+        if (frames.size() != expected) {
+            damage.add("header lists " + expected + " chunks but the file holds " + frames.size());
+        }
+    }
+
+    private static boolean atEnd(DataInputStream in) throws IOException {
+        in.mark(1);
+        if (in.read() < 0) {
+            return true;
+        }
+        in.reset();
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Task> decode(Frame f) throws IOException, ClassNotFoundException {
+        CRC32 crc = new CRC32();
+        crc.update(f.data);
+        if (crc.getValue() != f.crc) {
+            throw new IOException("checksum mismatch");
+        }
+        try (ObjectInputStream ois = new ObjectInputStream(new InflaterInputStream(new ByteArrayInputStream(f.data)))) {
+            List<Task> tasks = (List<Task>) ois.readObject();
+            if (tasks.size() != f.count) {
+                throw new IOException("expected " + f.count + " tasks, found " + tasks.size());
+            }
+            return tasks;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Result loadLegacy(InputStream in, List<String> damage) {
+        try (ObjectInputStream ois = new ObjectInputStream(in)) {
+            return new Result((List<Task>) ois.readObject(), damage);
+        } catch (Exception e) {
+            damage.add("old-format file could not be read: " + e);
+            return new Result(new ArrayList<>(), damage);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+import java.time.LocalDate;
+
+/**
+ * Range counts over tasks by due date, for the statistics tab.
+ *
+ * Two Fenwick trees indexed by epoch day hold how many tasks, and how many
+ * completed tasks, are due on each day. They follow the store, so adding,
+ * removing, toggling or rescheduling a task costs O(log n), and so does any
+ * count over a date range, however much history there is.
+ */
+public class TaskStats implements TaskStore.Listener {
+    private final FenwickTree total = new FenwickTree();
+    private final FenwickTree completed = new FenwickTree();
+
+    /**
+     * Builds the counts for the store's current tasks and keeps them up to date.
+     * @param store the store to follow
+     */
+    public TaskStats(TaskStore store) {
+        for (Task t : store.getTasks()) {
+            count(t.getDate(), t.isComplete(), 1);
+        }
+        store.addListener(this);
+    }
+
+    @Override
+    public void tasksChanged(TaskChange change) {
+        for (Task t : change.getRemoved()) {
+            count(change.getPreviousDate(t), change.wasComplete(t), -1);
+        }
+        for (Task t : change.getUpdated()) {
+            count(change.getPreviousDate(t), change.wasComplete(t), -1);
+            count(t.getDate(), t.isComplete(), 1);
+        }
+        for (Task t : change.getAdded()) {
+            count(t.getDate(), t.isComplete(), 1);
+        }
+    }
+
+    // Range counts (all ranges include both ends)
+
+    /**
+     * Returns how many tasks are due in a date range.
+     * @param from the first day
+     * @param to the last day
+     * @return the number of tasks due from..to
+     */
+    public long totalBetween(LocalDate from, LocalDate to) {
+        return total.rangeSum(from.toEpochDay(), to.toEpochDay());
+    }
+
+    /**
+     * Returns how many completed tasks are due in a date range.
+     * @param from the first day
+     * @param to the last day
+     * @return the number of completed tasks due from..to
+     */
+    public long completedBetween(LocalDate from, LocalDate to) {
+        return completed.rangeSum(from.toEpochDay(), to.toEpochDay());
+    }
+
+    /**
+     * Returns how many incomplete tasks are due in a date range.
+     * @param from the first day
+     * @param to the last day
+     * @return the number of open tasks due from..to
+     */
+    public long openBetween(LocalDate from, LocalDate to) {
+        return totalBetween(from, to) - completedBetween(from, to);
+    }
+
+    /**
+     * Returns the share of tasks due in a range that are complete.
+     * @param from the first day
+     * @param to the last day
+     * @return a value from 0 to 1, or 0 if nothing is due
+     */
+    public double completionRate(LocalDate from, LocalDate to) {
+        long due = totalBetween(from, to);
+        return due == 0 ? 0 : (double) completedBetween(from, to) / due;
+    }
+
+    /**
+     * Returns how many incomplete tasks would be overdue on a given day,
+     * i.e. are due before it.
+     * @param day the day to look at
+     * @return the overdue count on that day
+     */
+    public long overdueOn(LocalDate day) {
+        long before = day.toEpochDay() - 1;
+        return total.prefixSum(before) - completed.prefixSum(before);
+    }
+
+    /**
+     * Returns how many incomplete tasks are still scheduled on or after a day.
+     * Plotted over consecutive days this gives the burndown of open work.
+     * @param day the day to look at
+     * @return the open tasks due on or after that day
+     */
+    public long remainingFrom(LocalDate day) {
+        return (total.total() - completed.total()) - overdueOn(day);
+    }
+
+    /**
+     * Returns the number of tasks counted.
+     * @return the task count
+     */
+    public long size() {
+        return total.total();
+    }
+
+    // Internal helpers
+
+    private void count(LocalDate day, boolean complete, int delta) {
+        long pos = day.toEpochDay();
+        total.add(pos, delta);
+        if (complete) {
+            completed.add(pos, delta);
+        }
+    }
+}
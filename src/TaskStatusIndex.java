@@ -0,0 +1,56 @@
+import java.util.*;
+
+/**
+ * Keeps the open and the completed tasks of a TaskStore in separate sets,
+ * so "all open tasks" does not have to scan the completed ones.
+ */
+public class TaskStatusIndex implements TaskStore.Listener {
+    private final Set<Task> open = new LinkedHashSet<>();
+    private final Set<Task> done = new LinkedHashSet<>();
+
+    /**
+     * Builds the sets for the store's current tasks and keeps them up to date.
+     * @param store the store to index
+     */
+    public TaskStatusIndex(TaskStore store) {
+        for (Task t : store.getTasks()) {
+            (t.isComplete() ? done : open).add(t);
+        }
+        store.addListener(this);
+    }
+
+    @Override
+    public void tasksChanged(TaskChange change) {
+        for (Task t : change.getRemoved()) {
+            open.remove(t);
+            done.remove(t);
+        }
+        for (Task t : change.getUpdated()) {
+            if (change.wasComplete(t) != t.isComplete()) {
+                (t.isComplete() ? open : done).remove(t);
+                (t.isComplete() ? done : open).add(t);
+            }
+        }
+        for (Task t : change.getAdded()) {
+            (t.isComplete() ? done : open).add(t);
+        }
+    }
+
+    /**
+     * Returns the tasks with the given completion state.
+     * @param complete true for completed tasks, false for open ones
+     * @return a read-only view of the matching tasks
+     */
+    public Set<Task> tasks(boolean complete) {
+        return Collections.unmodifiableSet(complete ? done : open);
+    }
+
+    /**
+     * Returns how many tasks have the given completion state.
+     * @param complete true for completed tasks, false for open ones
+     * @return the count
+     */
+    public int count(boolean complete) {
+        return (complete ? done : open).size();
+    }
+}
@@ -0,0 +1,310 @@
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * The in-memory task model shared by the views.
+ *
+ * Every change to the tasks goes through the store so listeners (saving to disk,
+ * redrawing the tabs) hear about it. Changes made inside {@link #batch(Consumer)}
+ * are applied together and reported with a single TaskChange, so a bulk action
+ * costs one save and one redraw instead of one per task.
+ */
+public class TaskStore {
+    /**
+     * Receives one notification per top-level mutation or batch.
+     */
+    public interface Listener {
+        /**
+         * Called after a mutation or batch has been applied.
+         * @param change what was added, removed or updated
+         */
+        void tasksChanged(TaskChange change);
+    }
+
+    private final ArrayList<Task> tasks;
+    private final List<Listener> listeners = new ArrayList<>();
+    private TaskChange pending; // change being collected by the open batch, null when idle
+    private ArrayList<Runnable> undo; // reverses the open batch's list edits, newest last
+    private int depth;          // nesting level of batch() calls
+
+    /**
+     * Creates an empty store.
+     */
+    public TaskStore() {
+        this(new ArrayList<>());
+    }
+
+    /**
+     * Creates a store holding the given tasks (e.g. loaded from disk).
+     * @param initial the tasks to start with
+     */
+    public TaskStore(Collection<Task> initial) {
+        tasks = new ArrayList<>(initial);
+    }
+
+    // Listeners
+
+    /**
+     * Registers a listener for future changes.
+     * @param l the listener to add
+     */
+    public void addListener(Listener l) {
+        listeners.add(l);
+    }
+
+    /**
+     * Unregisters a listener.
+     * @param l the listener to remove
+     */
+    public void removeListener(Listener l) {
+        listeners.remove(l);
+    }
+
+    // Getters
+
+    /**
+     * Returns a read-only view of all tasks in insertion order.
+     * @return the tasks in the store
+     */
+    public List<Task> getTasks() {
+        return Collections.unmodifiableList(tasks);
+    }
+
+    /**
+     * Returns the number of tasks in the store.
+     * @return the task count
+     */
+    public int size() {
+        return tasks.size();
+    }
+
+    /**
+     * Checks if a batch is currently open.
+     * @return true while inside {@link #batch(Consumer)}
+     */
+    public boolean inBatch() {
+        return depth > 0;
+    }
+
+    // Batching
+
+    /**
+     * Runs several mutations as one unit.
+     * <p>
+     * Listeners are notified once, after the outermost batch finishes. Batches may be
+     * nested; inner batches simply join the outer one. If the body throws, every
+     * change made inside the batch is undone, nobody is notified, and the exception
+     * is rethrown.
+     *
+     * @param body the mutations to apply, given this store
+     */
+    public void batch(Consumer<TaskStore> body) {
+        if (depth == 0) {
+            pending = new TaskChange();
+            undo = new ArrayList<>();
+        }
+        depth++;
+        boolean ok = false;
+        try {
+            body.accept(this);
+            ok = true;
+        } finally {
+            depth--;
+            if (depth == 0) {
+                TaskChange change = pending;
+                List<Runnable> undoing = undo;
+                pending = null;
+                undo = null;
+                if (ok) {
+                    fire(change);
+                } else {
+                    rollback(change, undoing);
+                }
+            }
+        }
+    }
+
+    // Mutations
+
+    /**
+     * Adds a task to the store.
+     * @param t the task to add
+     */
+    public void add(Task t) {
+        batch(s -> {
+            tasks.add(t);
+            undo.add(() -> tasks.remove(tasks.size() - 1));
+            pending.recordAdded(t);
+        });
+    }
+
+    /**
+     * Adds many tasks at once with a single notification.
+     * @param newTasks the tasks to add
+     */
+    public void addAll(Collection<Task> newTasks) {
+        batch(s -> {
+            int oldSize = tasks.size();
+            tasks.ensureCapacity(oldSize + newTasks.size());
+            undo.add(() -> tasks.subList(oldSize, tasks.size()).clear());
+            for (Task t : newTasks) {
+                tasks.add(t);
+                pending.recordAdded(t);
+            }
+        });
+    }
+
+    /**
+     * Removes a task from the store.
+     * @param t the task to remove
+     * @return true if the task was in the store
+     */
+    public boolean remove(Task t) {
+        return removeIf(x -> x == t);
+    }
+
+    /**
+     * Removes every task matching the filter with a single notification.
+     * @param filter which tasks to remove
+     * @return true if anything was removed
+     */
+    public boolean removeIf(Predicate<Task> filter) {
+        boolean[] any = new boolean[1];
+        batch(s -> {
+            // Find the matches first, so a filter that throws leaves the list untouched
+            List<Integer> positions = new ArrayList<>();
+            List<Task> gone = new ArrayList<>();
+            for (int i = 0; i < tasks.size(); i++) {
+                if (filter.test(tasks.get(i))) {
+                    positions.add(i);
+                    gone.add(tasks.get(i));
+                }
+            }
+            if (gone.isEmpty()) {
+                return;
+            }
+            // Compact in one pass instead of shifting per removal
+            int n = tasks.size();
+            int w = 0;
+            int g = 0;
+            for (int r = 0; r < n; r++) {
+                if (g < positions.size() && positions.get(g) == r) {
+                    g++;
+                } else {
+                    tasks.set(w++, tasks.get(r));
+                }
+            }
+            tasks.subList(w, n).clear();
+            undo.add(() -> reinsert(positions, gone));
+            for (Task t : gone) {
+                pending.recordRemoved(t);
+            }
+            any[0] = true;
+        });
+        return any[0];
+    }
+
+    /**
+     * Marks a task complete or incomplete.
+     * @param t the task to change
+     * @param complete the new completion state
+     */
+    public void setComplete(Task t, boolean complete) {
+        if (t.isComplete() == complete) {
+            return;
+        }
+        update(t, x -> {
+            if (complete) x.markComplete(); else x.markIncomplete();
+        });
+    }
+
+    /**
+     * Moves a task to a new due date.
+     * @param t the task to change
+     * @param dueDate the new due date
+     */
+    public void setDueDate(Task t, LocalDate dueDate) {
+        if (dueDate.equals(t.getDate())) {
+            return;
+        }
+        update(t, x -> x.setDueDate(dueDate));
+    }
+
+    /**
+     * Changes a task's priority.
+     * @param t the task to change
+     * @param priority one of the Task.PRIORITY_ constants
+     */
+    public void setPriority(Task t, int priority) {
+        if (t.getPriority() == priority) {
+            return;
+        }
+        update(t, x -> x.setPriority(priority));
+    }
+
+    /**
+     * Applies an arbitrary edit to a task and records it as an update.
+     * Edits to tasks should go through here (or the helpers above) rather than
+     * the Task setters so listeners find out about them.
+     *
+     * @param t the task to change
+     * @param edit the edit to apply
+     */
+    public void update(Task t, Consumer<Task> edit) {
+        batch(s -> {
+            pending.recordUpdate(t);
+            edit.accept(t);
+        });
+    }
+
+    // Internal helpers
+
+    private void fire(TaskChange change) {
+        if (change.isEmpty()) {
+            return;
+        }
+        for (Listener l : new ArrayList<>(listeners)) {
+            l.tasksChanged(change);
+        }
+    }
+
+    /**
+     * Undoes a partially applied batch: the list edits in reverse order, so
+     * every task ends up back at its old position, then the field edits.
+     * @param change the changes recorded before the failure
+     * @param undoing the undo steps for the list edits, oldest first
+     */
+    private void rollback(TaskChange change, List<Runnable> undoing) {
+        for (int i = undoing.size() - 1; i >= 0; i--) {
+            undoing.get(i).run();
+        }
+        for (Task t : change.getRemoved()) {
+            TaskChange.Snapshot s = change.snapshotOf(t);
+            if (s != null) {
+                s.restore(t);
+            }
+        }
+        for (Task t : change.getUpdated()) {
+            change.snapshotOf(t).restore(t);
+        }
+    }
+
+    /**
+     * Puts removed tasks back at their old (ascending) positions in one pass
+     * from the end.
+     */
+    private void reinsert(List<Integer> positions, List<Task> gone) {
+        int r = tasks.size() - 1;
+        tasks.addAll(Collections.nCopies(gone.size(), null));
+        int g = gone.size() - 1;
+        for (int w = tasks.size() - 1; w >= 0; w--) {
+            if (g >= 0 && positions.get(g) == w) {
+                tasks.set(w, gone.get(g--));
+            } else {
+                tasks.set(w, tasks.get(r--));
+            }
+        }
+    }
+}
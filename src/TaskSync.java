@@ -0,0 +1,634 @@
+import java.io.*;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Keeps several copies of the app in step by swapping small change files
+ * through a shared folder.
+ * <p>
+ * Every field of every task is a last-writer-wins register. A local edit
+ * stamps just the fields it touched with a Lamport counter and this copy's
+ * replica id, and {@link #push()} writes only those field changes as one
+ * numbered delta file under {@code <folder>/<listName>/<replicaId>/}, so several
+ * task lists can share one folder without seeing each other's changes.
+ * {@link #pull()} reads the delta files other replicas of the same list wrote
+ * since last time and keeps, field by
+ * field, whichever value has the larger stamp. Stamps are totally ordered, so
+ * every copy ends up with the same result whatever order the files arrive in.
+ * Deletes are tombstones and always win over edits.
+ * <p>
+ * Sync cost is proportional to the number of edits, not the number of tasks.
+ * Nothing is recorded while sync is off; turning it on publishes every task
+ * once. Local edits and pushes are appended to a journal next to the state
+ * file instead of rewriting the whole state, which is only written again
+ * after a pull, when the folder changes, or once the journal has grown about
+ * as large as the state itself. Delta files are never compacted; a new
+ * replica replays the full history.
+ */
+public class TaskSync implements TaskStore.Listener {
+    /** The synchronized parts of a task. */
+    enum Field { NAME, DESCRIPTION, DUE, COMPLETE, PRIORITY, ESTIMATE, DELETED }
+
+    /**
+     * A Lamport timestamp. The replica id breaks ties, so two stamps are never equal
+     * unless they come from the same edit.
+     */
+    static final class Stamp implements Serializable, Comparable<Stamp> {
+        private static final long serialVersionUID = 1L;
+        final long counter;
+        final String replica;
+
+        Stamp(long counter, String replica) {
+            this.counter = counter;
+            this.replica = replica;
+        }
+
+        @Override
+        public int compareTo(Stamp o) {
+            int c = Long.compare(counter, o.counter);
+            return c != 0 ? c : replica.compareTo(o.replica);
+        }
+    }
+
+    /**
+     * One field set to one value; the unit of a delta file.
+     */
+    static final class FieldOp implements Serializable {
+        private static final long serialVersionUID = 1L;
+        final String taskId;
+        final Field field;
+        final Serializable value;
+        final Stamp stamp;
+
+        FieldOp(String taskId, Field field, Serializable value, Stamp stamp) {
+            this.taskId = taskId;
+            this.field = field;
+            this.value = value;
+            this.stamp = stamp;
+        }
+    }
+
+    /**
+     * Everything this replica needs to remember between runs.
+     */
+    private static final class State implements Serializable {
+        private static final long serialVersionUID = 1L;
+        String replicaId = UUID.randomUUID().toString();
+        String folder;                                          // shared folder, null when sync is off
+        long clock;                                             // Lamport counter
+        long nextSeq = 1;                                       // number of the next delta file we write
+        Map<String, EnumMap<Field, Stamp>> stamps = new HashMap<>();
+        Map<String, Stamp> tombstones = new HashMap<>();
+        Map<String, EnumMap<Field, FieldOp>> pending = new HashMap<>(); // remote tasks not yet complete enough to create
+        Map<String, Long> seen = new HashMap<>();               // replica id -> last delta file applied
+        ArrayList<FieldOp> outbox = new ArrayList<>();          // local edits not yet pushed
+    }
+
+    private static final int MIN_JOURNAL_OPS = 1024; // journal size below which the state is never rewritten
+
+    private final TaskStore store;
+    private final File stateFile;
+    private final String listName;
+    private final File journalFile;
+    private int journalOps; // field changes written to the journal since the state file was last written
+    private final Map<String, Task> byId = new HashMap<>();
+    private State state;
+    private boolean merging; // true while applying remote changes, so they are not re-published
+    private int skipped;     // invalid field changes dropped by the last merge
+
+    /**
+     * Loads (or creates) the sync state of the default list.
+     *
+     * @param store the store to synchronize
+     * @param stateFile where to keep the replica's stamps and progress
+     */
+    public TaskSync(TaskStore store, File stateFile) {
+        this(store, stateFile, TaskWorkspace.DEFAULT_LIST);
+    }
+
+    /**
+     * Loads (or creates) this replica's sync state for one task list and
+     * starts recording edits.
+     *
+     * @param store the store to synchronize
+     * @param stateFile where to keep the replica's stamps and progress
+     * @param listName the list's name, which names its folder inside the shared folder
+     */
+    public TaskSync(TaskStore store, File stateFile, String listName) {
+        this.store = store;
+        this.stateFile = stateFile;
+        this.listName = listName;
+        this.journalFile = stateFile == null ? null : new File(stateFile.getPath() + ".journal");
+        this.state = loadState(stateFile);
+        replayJournal();
+        for (Task t : store.getTasks()) {
+            byId.put(t.getId(), t);
+        }
+        if (state.folder == null) {
+            // Nothing is published until a folder is set; drop anything older versions queued up
+            if (!state.outbox.isEmpty() || !state.stamps.isEmpty() || !state.tombstones.isEmpty()) {
+                state.outbox.clear();
+                state.stamps.clear();
+                state.tombstones.clear();
+                saveState();
+            }
+        } else {
+            ArrayList<FieldOp> ops = new ArrayList<>();
+            for (Task t : store.getTasks()) {
+                // Tasks from before sync was set up are published as if just created
+                if (!state.stamps.containsKey(t.getId())) {
+                    ops.addAll(stampAll(t));
+                }
+            }
+            journal(ops);
+        }
+        store.addListener(this);
+    }
+
+    // Settings
+
+    /**
+     * Returns the shared folder, or null if sync is off.
+     * @return the folder
+     */
+    public File getFolder() {
+        return state.folder == null ? null : new File(state.folder);
+    }
+
+    /**
+     * Sets the shared folder and saves the setting. The first time a folder
+     * is set, every current task is queued for the next push.
+     * @param folder the folder other replicas also use
+     */
+    public void setFolder(File folder) {
+        if (state.folder == null) {
+            for (Task t : store.getTasks()) {
+                stampAll(t);
+            }
+        }
+        state.folder = folder.getAbsolutePath();
+        saveState();
+    }
+
+    /**
+     * Returns this copy's replica id, which names its folder inside the list's folder.
+     * @return the replica id
+     */
+    public String getReplicaId() {
+        return state.replicaId;
+    }
+
+    /**
+     * Returns how many field changes are waiting to be pushed.
+     * @return the outbox size
+     */
+    public int pendingChanges() {
+        return state.outbox.size();
+    }
+
+    // Local edits
+
+    @Override
+    public void tasksChanged(TaskChange change) {
+        if (merging) {
+            return;
+        }
+        for (Task t : change.getAdded()) {
+            byId.put(t.getId(), t);
+        }
+        for (Task t : change.getRemoved()) {
+            byId.remove(t.getId());
+        }
+        if (state.folder == null) {
+            return; // Sync is off: nothing to stamp or queue
+        }
+        ArrayList<FieldOp> ops = new ArrayList<>();
+        for (Task t : change.getAdded()) {
+            ops.addAll(stampAll(t));
+        }
+        for (Task t : change.getUpdated()) {
+            TaskChange.Snapshot before = change.snapshotOf(t);
+            for (Field f : Field.values()) {
+                if (f != Field.DELETED && !Objects.equals(valueOf(before, f), valueOf(t, f))) {
+                    ops.add(record(t.getId(), f, valueOf(t, f)));
+                }
+            }
+        }
+        for (Task t : change.getRemoved()) {
+            ops.add(record(t.getId(), Field.DELETED, Boolean.TRUE));
+        }
+        journal(ops);
+    }
+
+    // Exchange
+
+    /**
+     * Writes the local edits made since the last push as one delta file.
+     * The file is written under a temporary name and then renamed, so other
+     * replicas never read half of it.
+     *
+     * @return the number of field changes written
+     * @throws IOException if the shared folder cannot be written
+     */
+    public int push() throws IOException {
+        if (state.folder == null || state.outbox.isEmpty()) {
+            return 0;
+        }
+        Path dir = Paths.get(state.folder, listName, state.replicaId);
+        Files.createDirectories(dir);
+        long seq = state.nextSeq;
+        Path tmp = dir.resolve(seq + ".tmp");
+        try (ObjectOutputStream oos = new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            oos.writeObject(state.outbox);
+        }
+        Files.move(tmp, dir.resolve(deltaName(seq)), StandardCopyOption.ATOMIC_MOVE);
+        int n = state.outbox.size();
+        state.outbox = new ArrayList<>();
+        state.nextSeq = seq + 1;
+        journal(seq);
+        return n;
+    }
+
+    /**
+     * Applies every delta file other replicas wrote since the last pull.
+     * All remote changes go into the store as one batch (one save, one redraw).
+     *
+     * @return the number of field changes that won and were applied
+     * @throws IOException if the shared folder cannot be read
+     */
+    public int pull() throws IOException {
+        if (state.folder == null) {
+            return 0;
+        }
+        File[] replicas = new File(state.folder, listName).listFiles(File::isDirectory);
+        if (replicas == null) {
+            return 0;
+        }
+        List<FieldOp> incoming = new ArrayList<>();
+        Map<String, Long> read = new HashMap<>();
+        for (File replica : replicas) {
+            String id = replica.getName();
+            if (id.equals(state.replicaId)) {
+                continue;
+            }
+            long seq = state.seen.getOrDefault(id, 0L);
+            Path next;
+            while (Files.exists(next = replica.toPath().resolve(deltaName(seq + 1)))) {
+                incoming.addAll(readDelta(next));
+                seq++;
+            }
+            read.put(id, seq);
+        }
+        int applied = merge(incoming);
+        // Only marked as read once merged, so a failed merge is retried next time
+        state.seen.putAll(read);
+        saveState();
+        return applied;
+    }
+
+    /**
+     * Returns how many field changes the last pull skipped because their
+     * value could not be applied, e.g. a priority out of range.
+     * @return the skipped change count
+     */
+    public int skippedChanges() {
+        return skipped;
+    }
+
+    /**
+     * Merges field changes into the store; exposed to the package for tests.
+     * Changes with an invalid value are skipped. If the batch fails anyway,
+     * the store rolls back and so do the stamps, tombstones and pending tasks
+     * the merge touched.
+     *
+     * @param ops the remote field changes, in any order
+     * @return the number of changes that won
+     */
+    int merge(List<FieldOp> ops) {
+        int[] applied = new int[1];
+        skipped = 0;
+        long clock = state.clock;
+        Map<String, Saved> saved = new HashMap<>();
+        merging = true;
+        try {
+            store.batch(s -> {
+                for (FieldOp op : ops) {
+                    if (!isValid(op)) {
+                        skipped++;
+                        continue;
+                    }
+                    saved.computeIfAbsent(op.taskId, this::save);
+                    if (apply(op)) {
+                        applied[0]++;
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            state.clock = clock;
+            saved.forEach(this::restore);
+            throw e;
+        } finally {
+            merging = false;
+        }
+        return applied[0];
+    }
+
+    /**
+     * Returns the field changes waiting to be pushed; exposed to the package for tests.
+     * @return a copy of the outbox
+     */
+    List<FieldOp> outbox() {
+        return new ArrayList<>(state.outbox);
+    }
+
+    // Merging
+
+    private boolean apply(FieldOp op) {
+        state.clock = Math.max(state.clock, op.stamp.counter);
+        Stamp tomb = state.tombstones.get(op.taskId);
+        if (tomb != null) {
+            // Deleted for good; only keep the largest tombstone stamp
+            if (op.field == Field.DELETED && op.stamp.compareTo(tomb) > 0) {
+                state.tombstones.put(op.taskId, op.stamp);
+            }
+            return false;
+        }
+        if (op.field == Field.DELETED) {
+            Task t = byId.remove(op.taskId);
+            if (t != null) {
+                store.remove(t);
+            }
+            state.stamps.remove(op.taskId);
+            state.pending.remove(op.taskId);
+            state.tombstones.put(op.taskId, op.stamp);
+            return true;
+        }
+        Task t = byId.get(op.taskId);
+        if (t == null) {
+            return stash(op);
+        }
+        EnumMap<Field, Stamp> fields = state.stamps.computeIfAbsent(op.taskId, k -> new EnumMap<>(Field.class));
+        Stamp current = fields.get(op.field);
+        if (current != null && current.compareTo(op.stamp) >= 0) {
+            return false;
+        }
+        fields.put(op.field, op.stamp);
+        store.update(t, x -> setValue(x, op.field, op.value));
+        return true;
+    }
+
+    /**
+     * Holds changes for a task we have not seen yet, and creates it once its
+     * name and due date are known.
+     */
+    private boolean stash(FieldOp op) {
+        EnumMap<Field, FieldOp> fields = state.pending.computeIfAbsent(op.taskId, k -> new EnumMap<>(Field.class));
+        FieldOp current = fields.get(op.field);
+        if (current != null && current.stamp.compareTo(op.stamp) >= 0) {
+            return false;
+        }
+        fields.put(op.field, op);
+        if (fields.containsKey(Field.NAME) && fields.containsKey(Field.DUE)) {
+            state.pending.remove(op.taskId);
+            Task t = new Task(op.taskId, (String) fields.get(Field.NAME).value, "", (LocalDate) fields.get(Field.DUE).value);
+            EnumMap<Field, Stamp> stamps = new EnumMap<>(Field.class);
+            for (FieldOp f : fields.values()) {
+                setValue(t, f.field, f.value);
+                stamps.put(f.field, f.stamp);
+            }
+            state.stamps.put(op.taskId, stamps);
+            byId.put(op.taskId, t);
+            store.add(t);
+        }
+        return true;
+    }
+
+    /**
+     * A task's sync state as it was before a merge touched it.
+     */
+    private static final class Saved {
+        EnumMap<Field, Stamp> stamps;
+        Stamp tombstone;
+        EnumMap<Field, FieldOp> pending;
+        Task task;
+    }
+
+    private Saved save(String taskId) {
+        Saved s = new Saved();
+        EnumMap<Field, Stamp> stamps = state.stamps.get(taskId);
+        EnumMap<Field, FieldOp> pending = state.pending.get(taskId);
+        s.stamps = stamps == null ? null : new EnumMap<>(stamps);
+        s.tombstone = state.tombstones.get(taskId);
+        s.pending = pending == null ? null : new EnumMap<>(pending);
+        s.task = byId.get(taskId);
+        return s;
+    }
+
+    private void restore(String taskId, Saved s) {
+        putOrRemove(state.stamps, taskId, s.stamps);
+        putOrRemove(state.tombstones, taskId, s.tombstone);
+        putOrRemove(state.pending, taskId, s.pending);
+        putOrRemove(byId, taskId, s.task);
+    }
+
+    private static <V> void putOrRemove(Map<String, V> map, String key, V value) {
+        if (value == null) {
+            map.remove(key);
+        } else {
+            map.put(key, value);
+        }
+    }
+
+    /**
+     * Checks that a remote change names a task and field and carries a value
+     * the task will accept, so applying it cannot throw halfway through a merge.
+     */
+    private static boolean isValid(FieldOp op) {
+        if (op == null || op.taskId == null || op.field == null || op.stamp == null || op.stamp.replica == null) {
+            return false;
+        }
+        Serializable v = op.value;
+        switch (op.field) {
+            case NAME: return v instanceof String;
+            case DESCRIPTION: return v == null || v instanceof String;
+            case DUE: return v instanceof LocalDate;
+            case COMPLETE: return v instanceof Boolean;
+            case PRIORITY: return v instanceof Integer && (Integer) v >= Task.PRIORITY_NONE && (Integer) v <= Task.PRIORITY_HIGH;
+            case ESTIMATE: return v instanceof Integer && (Integer) v >= 0;
+            default: return true;
+        }
+    }
+
+    // Internal helpers
+
+    private List<FieldOp> stampAll(Task t) {
+        ArrayList<FieldOp> ops = new ArrayList<>();
+        for (Field f : Field.values()) {
+            if (f != Field.DELETED) {
+                ops.add(record(t.getId(), f, valueOf(t, f)));
+            }
+        }
+        return ops;
+    }
+
+    private FieldOp record(String taskId, Field f, Serializable value) {
+        FieldOp op = new FieldOp(taskId, f, value, new Stamp(++state.clock, state.replicaId));
+        recordLocal(op);
+        return op;
+    }
+
+    /**
+     * Applies a local edit to the state: its stamp (or tombstone) and the outbox.
+     * Also used to replay the journal.
+     */
+    private void recordLocal(FieldOp op) {
+        state.clock = Math.max(state.clock, op.stamp.counter);
+        if (op.field == Field.DELETED) {
+            state.stamps.remove(op.taskId);
+            state.tombstones.put(op.taskId, op.stamp);
+        } else {
+            state.stamps.computeIfAbsent(op.taskId, k -> new EnumMap<>(Field.class)).put(op.field, op.stamp);
+        }
+        state.outbox.add(op);
+    }
+
+    private static Serializable valueOf(Task t, Field f) {
+        switch (f) {
+            case NAME: return t.getName();
+            case DESCRIPTION: return t.getDescription();
+            case DUE: return t.getDate();
+            case COMPLETE: return t.isComplete();
+            case PRIORITY: return t.getPriority();
+            case ESTIMATE: return t.getEstimateMinutes();
+            default: return null;
+        }
+    }
+
+    private static Serializable valueOf(TaskChange.Snapshot s, Field f) {
+        switch (f) {
+            case NAME: return s.name;
+            case DESCRIPTION: return s.description;
+            case DUE: return s.dueDate;
+            case COMPLETE: return s.complete;
+            case PRIORITY: return s.priority;
+            case ESTIMATE: return s.estimateMinutes;
+            default: return null;
+        }
+    }
+
+    private static void setValue(Task t, Field f, Serializable v) {
+        switch (f) {
+            case NAME: t.setName((String) v); break;
+            case DESCRIPTION: t.setDescription((String) v); break;
+            case DUE: t.setDueDate((LocalDate) v); break;
+            case COMPLETE: if ((Boolean) v) t.markComplete(); else t.markIncomplete(); break;
+            case PRIORITY: t.setPriority((Integer) v); break;
+            case ESTIMATE: t.setEstimateMinutes((Integer) v); break;
+            default: break;
+        }
+    }
+
+    private static String deltaName(long seq) {
+        return seq + ".delta";
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<FieldOp> readDelta(Path file) throws IOException {
+        try (ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            return (List<FieldOp>) ois.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Unreadable delta file " + file, e);
+        }
+    }
+
+    private static State loadState(File file) {
+        if (file != null && file.exists()) {
+            try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(file))) {
+                return (State) ois.readObject();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+        return new State();
+    }
+
+    /**
+     * Writes the whole state and empties the journal.
+     */
+    private void saveState() {
+        if (stateFile == null) {
+            return;
+        }
+        try (ObjectOutputStream oos = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(stateFile)))) {
+            oos.writeObject(state);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return; // Keep the journal; it is still needed on top of the old state
+        }
+        journalFile.delete();
+        journalOps = 0;
+    }
+
+    /**
+     * Appends one entry to the journal: a list of local field changes, or the
+     * Long sequence number of a delta file just pushed. Each entry is its own
+     * length-prefixed serialized object, so appending never touches what is
+     * already there. Once the journal holds about as many changes as the state
+     * has tasks, the state is written out again and the journal starts over.
+     */
+    private void journal(Serializable entry) {
+        if (stateFile == null || (entry instanceof List && ((List<?>) entry).isEmpty())) {
+            return;
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(journalFile, true)))) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+                oos.writeObject(entry);
+            }
+            out.writeInt(bytes.size());
+            bytes.writeTo(out);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        journalOps += entry instanceof List ? ((List<?>) entry).size() : 1;
+        if (journalOps > Math.max(MIN_JOURNAL_OPS, state.stamps.size())) {
+            saveState();
+        }
+    }
+
+    /**
+     * Re-applies the journal on top of the state just loaded. A torn last
+     * entry (from a crash mid-append) is ignored.
+     */
+    @SuppressWarnings("unchecked")
+    private void replayJournal() {
+        if (journalFile == null || !journalFile.exists()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(journalFile)))) {
+            while (true) {
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                Object entry;
+                try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                    entry = ois.readObject();
+                }
+                if (entry instanceof Long) {
+                    state.outbox = new ArrayList<>();
+                    state.nextSeq = (Long) entry + 1;
+                    journalOps++;
+                } else {
+                    for (FieldOp op : (List<FieldOp>) entry) {
+                        recordLocal(op);
+                    }
+                    journalOps += ((List<FieldOp>) entry).size();
+                }
+            }
+        } catch (EOFException e) {
+            // End of the journal, or a torn last entry
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+}
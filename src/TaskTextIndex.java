@@ -0,0 +1,210 @@
+import java.util.*;
+
+/**
+ * An inverted index from the words in task names and descriptions to the
+ * tasks that contain them. Lookups match word prefixes, case-insensitively,
+ * so "rep" finds "Report" and "repairs".
+ *
+ * The index listens to the store. A changed task's old words are read from
+ * the change's snapshot, so nothing per task is kept besides the postings.
+ * A word used by a single task maps straight to that task; only shared words
+ * get a list, which keeps the index small when most words are unique.
+ */
+public class TaskTextIndex implements TaskStore.Listener {
+    private final TreeMap<String, Object> postings = new TreeMap<>(); // word -> Task, or ArrayList<Task> if shared
+
+    /**
+     * Builds an index over the store's current tasks and keeps it up to date.
+     * @param store the store to index
+     */
+    public TaskTextIndex(TaskStore store) {
+        for (Task t : store.getTasks()) {
+            insert(t, words(t));
+        }
+        store.addListener(this);
+    }
+
+    @Override
+    public void tasksChanged(TaskChange change) {
+        // Removals are grouped per word, so a bulk delete scans each posting once
+        Map<String, Set<Task>> drop = new HashMap<>();
+        for (Task t : change.getRemoved()) {
+            for (String w : oldWords(change, t)) {
+                unfile(w, t, drop);
+            }
+        }
+        for (Task t : change.getUpdated()) {
+            Set<String> before = oldWords(change, t);
+            Set<String> now = words(t);
+            if (!now.equals(before)) {
+                for (String w : before) {
+                    if (!now.contains(w)) {
+                        unfile(w, t, drop);
+                    }
+                }
+                now.removeAll(before);
+                insert(t, now);
+            }
+        }
+        for (Map.Entry<String, Set<Task>> e : drop.entrySet()) {
+            delete(e.getKey(), e.getValue());
+        }
+        for (Task t : change.getAdded()) {
+            insert(t, words(t));
+        }
+    }
+
+    // Queries
+
+    /**
+     * Returns the tasks with a word starting with the given prefix.
+     * @param prefix the prefix to look for (any case)
+     * @return a new set of matching tasks
+     */
+    @SuppressWarnings("unchecked")
+    public Set<Task> lookup(String prefix) {
+        Set<Task> out = new LinkedHashSet<>();
+        for (Object p : matching(prefix).values()) {
+            if (p instanceof Task) {
+                out.add((Task) p);
+            } else {
+                out.addAll((List<Task>) p);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Returns an upper bound on how many tasks {@link #lookup(String)} would return,
+     * without building the result.
+     * @param prefix the prefix to look for (any case)
+     * @return the summed size of the matching postings
+     */
+    public long estimate(String prefix) {
+        long n = 0;
+        for (Object p : matching(prefix).values()) {
+            n += p instanceof Task ? 1 : ((List<?>) p).size();
+        }
+        return n;
+    }
+
+    /**
+     * Splits text into the lower-case words the index uses: runs of letters
+     * and numbers.
+     * @param text the text to split, may be null
+     * @return the words, without duplicates
+     */
+    public static Set<String> words(String text) {
+        Set<String> out = new LinkedHashSet<>();
+        if (text == null) {
+            return out;
+        }
+        // A hand-written scan; a regex split was most of the cost of indexing large imports
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i < lower.length(); ) {
+            int cp = lower.codePointAt(i);
+            if (isWordChar(cp)) {
+                if (start < 0) {
+                    start = i;
+                }
+            } else if (start >= 0) {
+                out.add(lower.substring(start, i));
+                start = -1;
+            }
+            i += Character.charCount(cp);
+        }
+        if (start >= 0) {
+            out.add(lower.substring(start));
+        }
+        return out;
+    }
+
+    /**
+     * Returns the words of a task's name and description.
+     * @param t the task
+     * @return the words, without duplicates
+     */
+    public static Set<String> words(Task t) {
+        Set<String> out = words(t.getName());
+        out.addAll(words(t.getDescription()));
+        return out;
+    }
+
+    // Internal helpers
+
+    private static boolean isWordChar(int cp) {
+        switch (Character.getType(cp)) {
+            case Character.DECIMAL_DIGIT_NUMBER:
+            case Character.LETTER_NUMBER:
+            case Character.OTHER_NUMBER:
+                return true;
+            default:
+                return Character.isLetter(cp);
+        }
+    }
+
+    /**
+     * Returns the words a task was filed under before this change.
+     */
+    private static Set<String> oldWords(TaskChange change, Task t) {
+        TaskChange.Snapshot s = change.snapshotOf(t);
+        if (s == null) {
+            return words(t);
+        }
+        Set<String> out = words(s.name);
+        out.addAll(words(s.description));
+        return out;
+    }
+
+    private SortedMap<String, Object> matching(String prefix) {
+        String p = prefix.toLowerCase(Locale.ROOT);
+        return postings.subMap(p, p + Character.MAX_VALUE);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void insert(Task t, Set<String> ws) {
+        for (String w : ws) {
+            Object p = postings.putIfAbsent(w, t);
+            if (p instanceof Task) {
+                ArrayList<Task> shared = new ArrayList<>(2);
+                shared.add((Task) p);
+                shared.add(t);
+                postings.put(w, shared);
+            } else if (p != null) {
+                ((ArrayList<Task>) p).add(t);
+            }
+        }
+    }
+
+    /**
+     * Removes a task from a word's posting: at once if it is the only task
+     * there, otherwise queued in drop for one pass over the shared list.
+     */
+    private void unfile(String w, Task t, Map<String, Set<Task>> drop) {
+        Object p = postings.get(w);
+        if (p == t) {
+            postings.remove(w);
+        } else if (p instanceof List) {
+            drop.computeIfAbsent(w, k -> Collections.newSetFromMap(new IdentityHashMap<>())).add(t);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void delete(String w, Set<Task> gone) {
+        Object p = postings.get(w);
+        if (p instanceof Task) {
+            if (gone.contains(p)) {
+                postings.remove(w);
+            }
+        } else if (p != null) {
+            ArrayList<Task> shared = (ArrayList<Task>) p;
+            shared.removeIf(gone::contains);
+            if (shared.isEmpty()) {
+                postings.remove(w);
+            } else if (shared.size() == 1) {
+                postings.put(w, shared.get(0));
+            }
+        }
+    }
+}
@@ -0,0 +1,625 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Bulk import and export of tasks as CSV or iCalendar (VTODO) files.
+ * <p>
+ * Imports read the file on the calling thread, cut it into chunks of whole
+ * records, and parse the chunks in parallel on the common fork-join pool. Only a
+ * few chunks of raw text are alive at once, so memory stays bounded by the
+ * tasks themselves. The caller then adds the result to the store with one
+ * {@link TaskStore#addAll(Collection)}, which means one save and one redraw.
+ * <p>
+ * Exports write each task straight to the output stream without building the
+ * whole file in memory first.
+ *
+ * CSV columns are {@code name,description,due,complete,priority,estimate}; a
+ * header row is optional and may list the columns in any order.
+ */
+public class TaskTransfer {
+    private static final int CHUNK_SIZE = 8192; // records per parse task
+    static final int MAX_RECORD_CHARS = 1 << 20; // longest CSV record accepted, so a runaway quote cannot swallow the file
+    private static final String[] CSV_COLUMNS = {"name", "description", "due", "complete", "priority", "estimate"};
+    private static final DateTimeFormatter ICAL_DATE = DateTimeFormatter.BASIC_ISO_DATE; // yyyyMMdd
+
+    /**
+     * The tasks read from a file plus a message for every record that was skipped.
+     */
+    public static final class Result {
+        private final List<Task> tasks;
+        private final List<String> errors;
+
+        Result(List<Task> tasks, List<String> errors) {
+            this.tasks = tasks;
+            this.errors = errors;
+        }
+
+        /**
+         * Returns the parsed tasks in file order.
+         * @return the tasks
+         */
+        public List<Task> getTasks() {
+            return tasks;
+        }
+
+        /**
+         * Returns one message per record that could not be parsed.
+         * @return the errors, empty if everything parsed
+         */
+        public List<String> getErrors() {
+            return errors;
+        }
+    }
+
+    /**
+     * One raw record and the line it started on, for error messages.
+     */
+    private static final class Record {
+        final long line;
+        final Object data; // the raw CSV record, or the List<String> of unfolded iCal lines
+
+        Record(long line, Object data) {
+            this.line = line;
+            this.data = data;
+        }
+    }
+
+    /**
+     * What parsing one chunk produced.
+     */
+    private static final class Chunk {
+        final List<Task> tasks = new ArrayList<>();
+        final List<String> errors = new ArrayList<>();
+    }
+
+    /**
+     * Stands in for a record that was dropped before parsing.
+     */
+    private static final class Rejected {
+        final String message;
+
+        Rejected(String message) {
+            this.message = message;
+        }
+    }
+
+    private interface Parser {
+        Task parse(Record r, int[] columns);
+    }
+
+    // Import
+
+    /**
+     * Imports a file, choosing the format from its extension (.ics for iCalendar,
+     * anything else is CSV).
+     *
+     * @param file the file to read
+     * @return the parsed tasks and any errors
+     * @throws IOException if the file cannot be read
+     */
+    public static Result importFile(Path file) throws IOException {
+        return isICal(file) ? importICal(file) : importCsv(file);
+    }
+
+    /**
+     * Imports tasks from a CSV file.
+     *
+     * @param file the file to read
+     * @return the parsed tasks and any errors
+     * @throws IOException if the file cannot be read
+     */
+    public static Result importCsv(Path file) throws IOException {
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return importCsv(in, CHUNK_SIZE);
+        }
+    }
+
+    /**
+     * Imports tasks from an iCalendar file. Every VTODO with a DUE date becomes a task.
+     *
+     * @param file the file to read
+     * @return the parsed tasks and any errors
+     * @throws IOException if the file cannot be read
+     */
+    public static Result importICal(Path file) throws IOException {
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return importICal(in, CHUNK_SIZE);
+        }
+    }
+
+    static Result importCsv(BufferedReader in, int chunkSize) throws IOException {
+        ChunkPipeline pipeline = new ChunkPipeline(TaskTransfer::parseCsvRecord, chunkSize);
+        long lineNo = 0;
+        boolean first = true;
+        String line;
+        while ((line = in.readLine()) != null) {
+            lineNo++;
+            long start = lineNo;
+            // A quoted field may run over several lines; keep reading until it closes
+            if (endsInQuotes(line, false)) {
+                StringBuilder record = new StringBuilder(line);
+                boolean open = true;
+                while (open && record.length() <= MAX_RECORD_CHARS && (line = in.readLine()) != null) {
+                    lineNo++;
+                    open = endsInQuotes(line, true);
+                    record.append('\n').append(line);
+                }
+                if (record.length() > MAX_RECORD_CHARS) {
+                    // Drop the record and carry on with the next line as a fresh record
+                    pipeline.reject(start, "record longer than " + MAX_RECORD_CHARS + " characters (unclosed quote?)");
+                    continue;
+                }
+                line = record.toString();
+            }
+            if (line.isEmpty()) {
+                continue;
+            }
+            if (first) {
+                first = false;
+                int[] header = headerColumns(splitCsv(line));
+                if (header != null) {
+                    pipeline.columns = header;
+                    continue;
+                }
+            }
+            // Field splitting happens on the worker threads
+            pipeline.add(new Record(start, line));
+        }
+        return pipeline.finish();
+    }
+
+    static Result importICal(BufferedReader in, int chunkSize) throws IOException {
+        ChunkPipeline pipeline = new ChunkPipeline(TaskTransfer::parseVTodo, chunkSize);
+        List<String> todo = null;
+        long start = 0;
+        long lineNo = 0;
+        String line;
+        while ((line = in.readLine()) != null) {
+            lineNo++;
+            // Folded lines start with a space or tab and continue the previous line
+            if (todo != null && !todo.isEmpty() && (line.startsWith(" ") || line.startsWith("\t"))) {
+                int last = todo.size() - 1;
+                todo.set(last, todo.get(last) + line.substring(1));
+                continue;
+            }
+            if (line.equalsIgnoreCase("BEGIN:VTODO")) {
+                todo = new ArrayList<>();
+                start = lineNo;
+            } else if (line.equalsIgnoreCase("END:VTODO")) {
+                if (todo != null) {
+                    pipeline.add(new Record(start, todo));
+                }
+                todo = null;
+            } else if (todo != null) {
+                todo.add(line);
+            }
+        }
+        return pipeline.finish();
+    }
+
+    /**
+     * Collects records into chunks and keeps a bounded number of chunks
+     * parsing on the fork-join pool, joining the oldest first so results
+     * stay in file order.
+     */
+    private static final class ChunkPipeline {
+        private final Parser parser;
+        private final int chunkSize;
+        private final int maxInFlight = 2 * ForkJoinPool.getCommonPoolParallelism() + 1;
+        private final ArrayDeque<ForkJoinTask<Chunk>> inFlight = new ArrayDeque<>();
+        private final List<Task> tasks = new ArrayList<>();
+        private final List<String> errors = new ArrayList<>();
+        private List<Record> current = new ArrayList<>();
+        int[] columns = {0, 1, 2, 3, 4, 5};
+
+        ChunkPipeline(Parser parser, int chunkSize) {
+            this.parser = parser;
+            this.chunkSize = chunkSize;
+        }
+
+        void add(Record r) {
+            current.add(r);
+            if (current.size() >= chunkSize) {
+                submit();
+            }
+        }
+
+        /** Reports a record that could not even be read, in file order with the parse errors. */
+        void reject(long line, String message) {
+            add(new Record(line, new Rejected(message)));
+        }
+
+        Result finish() {
+            if (!current.isEmpty()) {
+                submit();
+            }
+            while (!inFlight.isEmpty()) {
+                collect(inFlight.poll().join());
+            }
+            return new Result(tasks, errors);
+        }
+
+        private void submit() {
+            List<Record> records = current;
+            int[] cols = columns;
+            current = new ArrayList<>(chunkSize);
+            inFlight.add(ForkJoinPool.commonPool().submit(() -> {
+                Chunk chunk = new Chunk();
+                for (Record r : records) {
+                    if (r.data instanceof Rejected) {
+                        chunk.errors.add("line " + r.line + ": " + ((Rejected) r.data).message);
+                        continue;
+                    }
+                    try {
+                        chunk.tasks.add(parser.parse(r, cols));
+                    } catch (RuntimeException e) {
+                        chunk.errors.add("line " + r.line + ": " + e.getMessage());
+                    }
+                }
+                return chunk;
+            }));
+            // Wait for the oldest chunk once enough are queued, so unread text does not pile up
+            while (inFlight.size() >= maxInFlight) {
+                collect(inFlight.poll().join());
+            }
+        }
+
+        private void collect(Chunk c) {
+            tasks.addAll(c.tasks);
+            errors.addAll(c.errors);
+        }
+    }
+
+    // CSV parsing
+
+    /**
+     * Checks if a line ends inside a quoted field. As in RFC 4180, a quote
+     * only opens a quoted field when it is the field's first character; a
+     * quote anywhere else (e.g. {@code Screen 5" wide}) is a literal.
+     *
+     * @param line     the line to scan
+     * @param inQuotes whether the line continues a quoted field
+     */
+    private static boolean endsInQuotes(String line, boolean inQuotes) {
+        boolean fieldStart = !inQuotes;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (inQuotes) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        i++;
+                    } else {
+                        inQuotes = false;
+                    }
+                }
+            } else if (c == '"' && fieldStart) {
+                inQuotes = true;
+                fieldStart = false;
+            } else {
+                fieldStart = c == ',';
+            }
+        }
+        return inQuotes;
+    }
+
+    /**
+     * Splits one CSV record into fields, handling quoted fields and "" escapes.
+     * A quote that does not start a field is kept as a literal character.
+     */
+    static List<String> splitCsv(CharSequence s) {
+        List<String> fields = new ArrayList<>(4);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean fieldStart = true;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < s.length() && s.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"' && fieldStart) {
+                quoted = true;
+                fieldStart = false;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+                fieldStart = true;
+            } else {
+                field.append(c);
+                fieldStart = false;
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * Maps header names to column positions, or returns null if the row is not a header.
+     */
+    private static int[] headerColumns(List<String> fields) {
+        int[] cols = new int[CSV_COLUMNS.length];
+        for (int c = 0; c < CSV_COLUMNS.length; c++) {
+            cols[c] = -1;
+            for (int i = 0; i < fields.size(); i++) {
+                if (fields.get(i).trim().equalsIgnoreCase(CSV_COLUMNS[c])) {
+                    cols[c] = i;
+                }
+            }
+        }
+        // Name and due date are required; the others are optional
+        return cols[0] >= 0 && cols[2] >= 0 ? cols : null;
+    }
+
+    private static Task parseCsvRecord(Record r, int[] cols) {
+        List<String> f = splitCsv((String) r.data);
+        String name = column(f, cols[0]).trim();
+        if (name.isEmpty()) {
+            throw new IllegalArgumentException("missing name");
+        }
+        String due = column(f, cols[2]).trim();
+        if (due.isEmpty()) {
+            throw new IllegalArgumentException("missing due date");
+        }
+        Task t = new Task(name, column(f, cols[1]), LocalDate.parse(due));
+        String done = column(f, cols[3]).trim();
+        if (done.equalsIgnoreCase("true") || done.equalsIgnoreCase("yes") || done.equals("1")) {
+            t.markComplete();
+        }
+        t.setPriority(parsePriority(column(f, cols[4]).trim()));
+        String estimate = column(f, cols[5]).trim();
+        if (!estimate.isEmpty()) {
+            t.setEstimateMinutes(Integer.parseInt(estimate));
+        }
+        return t;
+    }
+
+    /**
+     * Accepts a priority as a number (0-3) or a name ("high"); blank means none.
+     */
+    private static int parsePriority(String s) {
+        if (s.isEmpty()) {
+            return Task.PRIORITY_NONE;
+        }
+        for (int p = Task.PRIORITY_NONE; p <= Task.PRIORITY_HIGH; p++) {
+            if (s.equalsIgnoreCase(Task.priorityName(p))) {
+                return p;
+            }
+        }
+        return Integer.parseInt(s);
+    }
+
+    private static String column(List<String> fields, int i) {
+        return i >= 0 && i < fields.size() ? fields.get(i) : "";
+    }
+
+    // iCalendar parsing
+
+    @SuppressWarnings("unchecked")
+    private static Task parseVTodo(Record r, int[] unused) {
+        String id = null;
+        String name = null;
+        String description = "";
+        LocalDate due = null;
+        boolean complete = false;
+        int priority = Task.PRIORITY_NONE;
+        int estimate = 0;
+        for (String line : (List<String>) r.data) {
+            int colon = line.indexOf(':');
+            if (colon < 0) {
+                continue;
+            }
+            // Property name is everything before the first ';' (parameters) or ':'
+            int semi = line.indexOf(';');
+            String prop = line.substring(0, semi >= 0 && semi < colon ? semi : colon).toUpperCase(Locale.ROOT);
+            String value = line.substring(colon + 1);
+            switch (prop) {
+                case "UID":
+                    id = value.trim().isEmpty() ? null : value.trim();
+                    break;
+                case "SUMMARY":
+                    name = unescape(value);
+                    break;
+                case "DESCRIPTION":
+                    description = unescape(value);
+                    break;
+                case "DUE":
+                    if (value.length() < 8) {
+                        throw new IllegalArgumentException("bad DUE '" + value + "'");
+                    }
+                    due = LocalDate.parse(value.substring(0, 8), ICAL_DATE);
+                    break;
+                case "STATUS":
+                    complete = value.trim().equalsIgnoreCase("COMPLETED");
+                    break;
+                case "COMPLETED":
+                    complete = true;
+                    break;
+                case "PRIORITY":
+                    priority = fromICalPriority(Integer.parseInt(value.trim()));
+                    break;
+                case "X-ESTIMATE-MINUTES":
+                    estimate = Integer.parseInt(value.trim());
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (name == null || name.isEmpty()) {
+            throw new IllegalArgumentException("VTODO without SUMMARY");
+        }
+        if (due == null) {
+            throw new IllegalArgumentException("VTODO '" + name + "' has no DUE date");
+        }
+        // Keep the UID so a task exported from one list or machine stays the same task here
+        Task t = new Task(id, name, description, due);
+        if (complete) {
+            t.markComplete();
+        }
+        t.setPriority(priority);
+        t.setEstimateMinutes(estimate);
+        return t;
+    }
+
+    /**
+     * iCalendar priorities run 1 (highest) to 9 (lowest), 0 meaning undefined.
+     */
+    private static int fromICalPriority(int p) {
+        if (p <= 0) return Task.PRIORITY_NONE;
+        if (p <= 4) return Task.PRIORITY_HIGH;
+        if (p == 5) return Task.PRIORITY_MEDIUM;
+        return Task.PRIORITY_LOW;
+    }
+
+    private static int toICalPriority(int p) {
+        switch (p) {
+            case Task.PRIORITY_HIGH: return 1;
+            case Task.PRIORITY_MEDIUM: return 5;
+            case Task.PRIORITY_LOW: return 9;
+            default: return 0;
+        }
+    }
+
+    private static String unescape(String v) {
+        StringBuilder sb = new StringBuilder(v.length());
+        for (int i = 0; i < v.length(); i++) {
+            char c = v.charAt(i);
+            if (c == '\\' && i + 1 < v.length()) {
+                char n = v.charAt(++i);
+                sb.append(n == 'n' || n == 'N' ? '\n' : n);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    // Export
+
+    /**
+     * Exports tasks to a file, choosing the format from its extension
+     * (.ics for iCalendar, anything else is CSV).
+     *
+     * @param tasks the tasks to write
+     * @param file the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public static void exportFile(Collection<Task> tasks, Path file) throws IOException {
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            if (isICal(file)) {
+                exportICal(tasks, out);
+            } else {
+                exportCsv(tasks, out);
+            }
+        }
+    }
+
+    /**
+     * Writes tasks as CSV with a header row.
+     *
+     * @param tasks the tasks to write
+     * @param out where to write; not closed
+     * @throws IOException if writing fails
+     */
+    public static void exportCsv(Collection<Task> tasks, Writer out) throws IOException {
+        out.write(String.join(",", CSV_COLUMNS));
+        out.write("\r\n");
+        for (Task t : tasks) {
+            writeCsvField(out, t.getName());
+            out.write(',');
+            writeCsvField(out, t.getDescription());
+            out.write(',');
+            out.write(t.getDate().toString());
+            out.write(',');
+            out.write(t.isComplete() ? "true" : "false");
+            out.write(',');
+            out.write(Integer.toString(t.getPriority()));
+            out.write(',');
+            out.write(Integer.toString(t.getEstimateMinutes()));
+            out.write("\r\n");
+        }
+        out.flush();
+    }
+
+    /**
+     * Writes tasks as an iCalendar file with one VTODO per task.
+     *
+     * @param tasks the tasks to write
+     * @param out where to write; not closed
+     * @throws IOException if writing fails
+     */
+    public static void exportICal(Collection<Task> tasks, Writer out) throws IOException {
+        out.write("BEGIN:VCALENDAR\r\nVERSION:2.0\r\nPRODID:-//kiwi//ToDo List//EN\r\n");
+        for (Task t : tasks) {
+            out.write("BEGIN:VTODO\r\n");
+            writeICalLine(out, "UID:" + t.getId());
+            writeICalLine(out, "SUMMARY:" + escape(t.getName()));
+            if (t.getDescription() != null && !t.getDescription().isEmpty()) {
+                writeICalLine(out, "DESCRIPTION:" + escape(t.getDescription()));
+            }
+            writeICalLine(out, "DUE;VALUE=DATE:" + t.getDate().format(ICAL_DATE));
+            writeICalLine(out, "STATUS:" + (t.isComplete() ? "COMPLETED" : "NEEDS-ACTION"));
+            if (t.getPriority() != Task.PRIORITY_NONE) {
+                writeICalLine(out, "PRIORITY:" + toICalPriority(t.getPriority()));
+            }
+            if (t.getEstimateMinutes() > 0) {
+                writeICalLine(out, "X-ESTIMATE-MINUTES:" + t.getEstimateMinutes());
+            }
+            out.write("END:VTODO\r\n");
+        }
+        out.write("END:VCALENDAR\r\n");
+        out.flush();
+    }
+
+    private static void writeCsvField(Writer out, String s) throws IOException {
+        if (s == null) {
+            return;
+        }
+        if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0 && s.indexOf('\r') < 0) {
+            out.write(s);
+            return;
+        }
+        out.write('"');
+        out.write(s.replace("\"", "\"\""));
+        out.write('"');
+    }
+
+    private static String escape(String s) {
+        return s.replace("\\", "\\\\").replace(";", "\\;").replace(",", "\\,").replace("\r", "").replace("\n", "\\n");
+    }
+
+    /**
+     * Writes a content line, folding it at 75 characters as RFC 5545 asks.
+     * Continuation lines carry a leading space, so they hold 74 more characters.
+     */
+    private static void writeICalLine(Writer out, String line) throws IOException {
+        int pos = 0;
+        int width = 75;
+        while (line.length() - pos > width) {
+            out.write(line, pos, width);
+            out.write("\r\n ");
+            pos += width;
+            width = 74;
+        }
+        out.write(line, pos, line.length() - pos);
+        out.write("\r\n");
+    }
+
+    private static boolean isICal(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        return name.endsWith(".ics") || name.endsWith(".ical");
+    }
+}
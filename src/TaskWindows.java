@@ -0,0 +1,141 @@
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * The date windows shown by the main window: this week, next week and overdue.
+ *
+ * The windows are kept up to date incrementally. Store changes only move the
+ * tasks that changed, and {@link #rollTo(LocalDate)} slides the windows forward
+ * one day at a time: yesterday's bucket moves into Overdue, next week's first
+ * day moves into this week, and the new last day of next week is read from the
+ * date index. Nothing is rebuilt from the full task list.
+ */
+public class TaskWindows implements TaskStore.Listener {
+    private final TaskDateIndex index;
+    private LocalDate today;
+    private DateBasedWeeklyToDoList thisWeek;
+    private DateBasedWeeklyToDoList nextWeek;
+    private LinkedHashSet<Task> overdue;
+
+    /**
+     * Builds the windows for the given day and starts following the store.
+     * The index must already be registered with the store.
+     *
+     * @param store the store to follow
+     * @param index the date index over that store
+     * @param today the current day
+     */
+    public TaskWindows(TaskStore store, TaskDateIndex index, LocalDate today) {
+        this.index = index;
+        rebuild(today);
+        store.addListener(this);
+    }
+
+    // Getters
+
+    /**
+     * Returns the day the windows are anchored to.
+     * @return today's date as far as the windows know
+     */
+    public LocalDate getToday() {
+        return today;
+    }
+
+    /**
+     * Returns the 7-day window starting today.
+     * @return this week's view
+     */
+    public DateBasedWeeklyToDoList getThisWeek() {
+        return thisWeek;
+    }
+
+    /**
+     * Returns the 7-day window starting a week from today.
+     * @return next week's view
+     */
+    public DateBasedWeeklyToDoList getNextWeek() {
+        return nextWeek;
+    }
+
+    /**
+     * Returns the tasks due before today.
+     * @return a read-only list of overdue tasks
+     */
+    public List<Task> getOverdue() {
+        return Collections.unmodifiableList(new ArrayList<>(overdue));
+    }
+
+    // Time
+
+    /**
+     * Moves the windows to a new current day.
+     * <p>
+     * Moving forward by up to two weeks shifts the windows one day at a time;
+     * larger jumps, or moving backwards, rebuild them from the date index.
+     *
+     * @param newToday the new current day
+     * @return true if anything changed
+     */
+    public boolean rollTo(LocalDate newToday) {
+        long days = ChronoUnit.DAYS.between(today, newToday);
+        if (days == 0) {
+            return false;
+        }
+        if (days < 0 || days > 14) {
+            rebuild(newToday);
+            return true;
+        }
+        for (long i = 0; i < days; i++) {
+            LocalDate entering = nextWeek.getStartDate().plusDays(7);
+            List<Task> pastDue = thisWeek.advanceDay(nextWeek.advanceDay(index.tasksOn(entering)));
+            overdue.addAll(pastDue);
+            today = today.plusDays(1);
+        }
+        return true;
+    }
+
+    // Store changes
+
+    @Override
+    public void tasksChanged(TaskChange change) {
+        for (Task t : change.getRemoved()) {
+            unplace(t, change.getPreviousDate(t));
+        }
+        for (Task t : change.getUpdated()) {
+            LocalDate before = change.getPreviousDate(t);
+            if (!before.equals(t.getDate())) {
+                unplace(t, before);
+                place(t);
+            }
+        }
+        for (Task t : change.getAdded()) {
+            place(t);
+        }
+    }
+
+    // Internal helpers
+
+    private void rebuild(LocalDate newToday) {
+        today = newToday;
+        thisWeek = new DateBasedWeeklyToDoList(index, today);
+        nextWeek = new DateBasedWeeklyToDoList(index, today.plusWeeks(1));
+        overdue = new LinkedHashSet<>(index.tasksBefore(today));
+    }
+
+    private void place(Task t) {
+        if (t.getDate().isBefore(today)) {
+            overdue.add(t);
+        } else if (!thisWeek.addTask(t)) {
+            nextWeek.addTask(t);
+        }
+    }
+
+    private void unplace(Task t, LocalDate date) {
+        if (date.isBefore(today)) {
+            overdue.remove(t);
+        } else if (!thisWeek.removeTask(t, date)) {
+            nextWeek.removeTask(t, date);
+        }
+    }
+}
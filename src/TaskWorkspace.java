@@ -0,0 +1,241 @@
+import java.io.File;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * The set of named task lists the user works with.
+ * <p>
+ * The default list keeps living in its original file; every other list is
+ * {@code <name>.dat} inside the lists folder. Lists are opened lazily, the
+ * first time they are asked for, and at most {@code maxOpen} stay loaded:
+ * opening one more closes the least recently used. Lists that have not been
+ * used for a while can also be closed with {@link #evictIdle(Duration)}.
+ * A pinned list (the one on screen) is never closed.
+ */
+public class TaskWorkspace {
+    /** Name of the list stored in the original single-list file. */
+    public static final String DEFAULT_LIST = "Default";
+    private static final String EXTENSION = ".dat";
+
+    private final File dir;
+    private final int maxOpen;
+    private final Clock clock;
+    private final TreeMap<String, TaskList> lists = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    // Access order makes the first entry the least recently used https://docs.oracle.com/javase/8/docs/api/java/util/LinkedHashMap.html
+    private final LinkedHashMap<String, Instant> lastUsed = new LinkedHashMap<>(16, 0.75f, true);
+    private final Set<String> pinned = new HashSet<>();
+
+    /**
+     * Finds the lists on disk without opening any of them.
+     *
+     * @param defaultFile the file of the default list
+     * @param dir         the folder holding the other lists, created on first use
+     * @param maxOpen     how many lists may be loaded at once
+     * @param clock       the clock used to tell how long a list has been idle
+     */
+    public TaskWorkspace(File defaultFile, File dir, int maxOpen, Clock clock) {
+        if (maxOpen < 1) {
+            throw new IllegalArgumentException("maxOpen must be at least 1");
+        }
+        this.dir = dir;
+        this.maxOpen = maxOpen;
+        this.clock = clock;
+        lists.put(DEFAULT_LIST, new TaskList(DEFAULT_LIST, defaultFile));
+        File[] files = dir.listFiles((d, n) -> n.endsWith(EXTENSION));
+        if (files != null) {
+            for (File f : files) {
+                String name = f.getName().substring(0, f.getName().length() - EXTENSION.length());
+                if (isValidName(name) && !lists.containsKey(name)) {
+                    lists.put(name, new TaskList(name, f));
+                }
+            }
+        }
+    }
+
+    // Lists
+
+    /**
+     * Returns the names of all lists, default first, then alphabetically.
+     * @return the list names
+     */
+    public List<String> getNames() {
+        List<String> names = new ArrayList<>();
+        names.add(DEFAULT_LIST);
+        for (String name : lists.keySet()) {
+            if (!name.equals(DEFAULT_LIST)) {
+                names.add(name);
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Returns a list without opening it.
+     * @param name the list name
+     * @return the list, or null if there is none by that name
+     */
+    public TaskList get(String name) {
+        return lists.get(name);
+    }
+
+    /**
+     * Returns a list, opening it first if needed. If that takes the number of
+     * open lists over the limit, the least recently used unpinned one is closed.
+     *
+     * @param name the list name
+     * @return the open list
+     * @throws IllegalArgumentException if there is no list by that name
+     */
+    public TaskList open(String name) {
+        TaskList list = lists.get(name);
+        if (list == null) {
+            throw new IllegalArgumentException("no list named " + name);
+        }
+        list.open();
+        lastUsed.put(list.getName(), clock.instant());
+        Iterator<String> eldest = lastUsed.keySet().iterator();
+        while (lastUsed.size() > maxOpen && eldest.hasNext()) {
+            String candidate = eldest.next();
+            if (!candidate.equals(list.getName()) && !pinned.contains(candidate)) {
+                lists.get(candidate).close();
+                eldest.remove();
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Creates a new, empty list and saves it so it is found next time.
+     *
+     * @param name the list name: letters, digits, spaces, '-' or '_'
+     * @return the new list, open
+     * @throws IllegalArgumentException if the name is invalid or taken
+     * @throws IOException if the list's file cannot be written
+     */
+    public TaskList create(String name) throws IOException {
+        name = name.trim();
+        if (!isValidName(name)) {
+            throw new IllegalArgumentException("List names may only use letters, digits, spaces, '-' and '_'");
+        }
+        if (lists.containsKey(name)) {
+            throw new IllegalArgumentException("There is already a list named " + name);
+        }
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("could not create " + dir);
+        }
+        File file = new File(dir, name + EXTENSION);
+        TaskSnapshot.save(new ArrayList<>(), file);
+        lists.put(name, new TaskList(name, file));
+        return open(name);
+    }
+
+    /**
+     * Keeps a list from being closed, or allows it again. A pinned list is in
+     * use the whole time, so unpinning counts as using it: it becomes the most
+     * recently used list and only goes idle from now.
+     *
+     * @param name   the list name
+     * @param pinned true to keep it open
+     */
+    public void pin(String name, boolean pinned) {
+        if (pinned) {
+            this.pinned.add(name);
+        } else if (this.pinned.remove(name) && lastUsed.containsKey(name)) {
+            lastUsed.put(name, clock.instant());
+        }
+    }
+
+    /**
+     * Closes every unpinned list that has not been used for at least the given time.
+     *
+     * @param idle how long a list must have been unused
+     * @return the number of lists closed
+     */
+    public int evictIdle(Duration idle) {
+        Instant cutoff = clock.instant().minus(idle);
+        int closed = 0;
+        Iterator<Map.Entry<String, Instant>> it = lastUsed.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Instant> e = it.next();
+            if (e.getValue().isAfter(cutoff)) {
+                break; // Oldest first, so the rest are newer still
+            }
+            if (!pinned.contains(e.getKey())) {
+                lists.get(e.getKey()).close();
+                it.remove();
+                closed++;
+            }
+        }
+        return closed;
+    }
+
+    /**
+     * Returns how many lists are loaded.
+     * @return the open list count
+     */
+    public int openCount() {
+        return lastUsed.size();
+    }
+
+    // Combined views
+
+    /**
+     * Builds one week across every list by merging the lists' date indexes
+     * day by day, in {@link #getNames()} order.
+     *
+     * @param start the first day of the week
+     * @return the merged week
+     */
+    public DateBasedWeeklyToDoList combinedWeek(LocalDate start) {
+        return combinedWeek(start, new IdentityHashMap<>());
+    }
+
+    /**
+     * Builds one week across every list and records which list each task
+     * came from. Closed lists are read from disk without being opened, so a
+     * combined view never closes other lists or counts as using them.
+     *
+     * @param start  the first day of the week
+     * @param owners filled with each task in the week and its list's name
+     * @return the merged week
+     */
+    public DateBasedWeeklyToDoList combinedWeek(LocalDate start, Map<Task, String> owners) {
+        List<TaskDateIndex> indexes = new ArrayList<>();
+        for (String name : getNames()) {
+            TaskDateIndex index = lists.get(name).peekIndex();
+            indexes.add(index);
+            for (int i = 0; i < 7; i++) {
+                for (Task t : index.tasksOn(start.plusDays(i))) {
+                    owners.put(t, name);
+                }
+            }
+        }
+        return new DateBasedWeeklyToDoList(indexes, start);
+    }
+
+    /**
+     * Finds which open list a task belongs to. Only the task's own day bucket
+     * in each list is checked.
+     *
+     * @param t the task
+     * @return the list's name, or null if no open list holds the task
+     */
+    public String listOf(Task t) {
+        for (TaskList list : lists.values()) {
+            if (list.isOpen() && list.getIndex().tasksOn(t.getDate()).contains(t)) {
+                return list.getName();
+            }
+        }
+        return null;
+    }
+
+    // Internal helpers
+
+    private static boolean isValidName(String name) {
+        return !name.isEmpty() && name.matches("[A-Za-z0-9 _-]+");
+    }
+}
@@ -1,6 +1,9 @@
 import java.util.ArrayList;
 
-public class ToDoList extends ArrayList<String> {
+/**
+ * A plain in-memory list of tasks. Named, saved task lists are {@link TaskList}.
+ */
+public class ToDoList {
     private ArrayList<Task> tasks;
 
     /**
@@ -27,6 +30,13 @@ public class ToDoList extends ArrayList<String> {
         tasks.add(newTask);
     }
 
+    /**
+     * Removes every task from the list.
+     */
+    public void clear() {
+        tasks.clear();
+    }
+
     /**
      * Gets the contents of the ToDoList as an array.
      * @return an ArrayList of tasks
@@ -34,4 +44,4 @@ public class ToDoList extends ArrayList<String> {
     public ArrayList<Task> getTasks() {
         return tasks;
     }
-}
\ No newline at end of file
+}
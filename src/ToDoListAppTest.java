@@ -1,7 +1,14 @@
 import static org.junit.Assert.*;
 import org.junit.Test;
 
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.*;
 
 public class ToDoListAppTest {
@@ -9,7 +16,6 @@ public class ToDoListAppTest {
     private Task task2;
     private Task task3;
     private List<Task> sampleTasks;
-    private kiwi kiwi;
 
     // JUnit 4 creates a fresh instance per @Test, so this constructor runs before each test
     public ToDoListAppTest() {
@@ -17,7 +23,6 @@ public class ToDoListAppTest {
         task2 = new Task("Task2", "Desc2", LocalDate.now().minusDays(1));
         task3 = new Task("Task3", "Desc3", LocalDate.now().plusDays(1));
         sampleTasks = Arrays.asList(task1, task2, task3);
-        kiwi = new kiwi();
     }
 
     @Test
@@ -142,4 +147,752 @@ public class ToDoListAppTest {
     public void testKiwiGetDateTime() {
         assertEquals(LocalDate.now().toString(), kiwi.getDateTime());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testTaskStoreBatchNotifiesOnce() {
+        TaskStore store = new TaskStore(sampleTasks);
+        List<TaskChange> changes = new ArrayList<>();
+        store.addListener(changes::add);
+
+        Task task4 = new Task("Task4", "Desc4", LocalDate.now());
+        store.batch(s -> {
+            s.setComplete(task1, true);
+            s.setDueDate(task2, LocalDate.now().plusWeeks(1));
+            s.add(task4);
+            s.remove(task3);
+        });
+
+        assertEquals(1, changes.size());
+        TaskChange change = changes.get(0);
+        assertTrue(change.getAdded().contains(task4));
+        assertTrue(change.getRemoved().contains(task3));
+        assertTrue(change.getUpdated().contains(task2));
+        assertEquals(LocalDate.now().minusDays(1), change.getPreviousDate(task2));
+        assertFalse(change.wasComplete(task1));
+        assertEquals(3, store.size());
+    }
+
+    @Test
+    public void testTaskStoreBatchRollsBackOnFailure() {
+        TaskStore store = new TaskStore(sampleTasks);
+        List<TaskChange> changes = new ArrayList<>();
+        store.addListener(changes::add);
+
+        try {
+            store.batch(s -> {
+                s.setComplete(task1, true);
+                s.remove(task2);
+                s.add(new Task("Task4", "Desc4", LocalDate.now()));
+                throw new IllegalStateException("boom");
+            });
+            fail("batch should rethrow");
+        } catch (IllegalStateException expected) {
+            // expected
+        }
+
+        assertTrue(changes.isEmpty());
+        assertFalse(task1.isComplete());
+        assertEquals(3, store.size());
+        assertTrue(store.getTasks().contains(task2));
+    }
+
+    @Test
+    public void testTaskStoreRollbackKeepsOrderAndSurvivesThrowingFilter() {
+        TaskStore store = new TaskStore(sampleTasks);
+
+        // A filter that throws part-way removes nothing
+        try {
+            store.removeIf(t -> {
+                if (t == task3) throw new IllegalStateException("boom");
+                return true;
+            });
+            fail("removeIf should rethrow");
+        } catch (IllegalStateException expected) {
+            // expected
+        }
+        assertEquals(sampleTasks, store.getTasks());
+
+        // Removed tasks go back where they were
+        try {
+            store.batch(s -> {
+                s.remove(task1);
+                s.add(new Task("Task4", "Desc4", LocalDate.now()));
+                s.remove(task3);
+                throw new IllegalStateException("boom");
+            });
+            fail("batch should rethrow");
+        } catch (IllegalStateException expected) {
+            // expected
+        }
+        assertEquals(sampleTasks, store.getTasks());
+    }
+
+    @Test
+    public void testKiwiUsesInjectedClock() {
+        Clock fixed = Clock.fixed(Instant.parse("2025-05-06T12:00:00Z"), ZoneId.of("UTC"));
+        kiwi.setClock(fixed);
+        try {
+            assertEquals("2025-05-06", kiwi.getDateTime());
+            assertEquals(LocalDate.of(2025, 5, 6), kiwi.today());
+        } finally {
+            kiwi.setClock(Clock.systemDefaultZone());
+        }
+    }
+
+    @Test
+    public void testUntilNextMidnight() {
+        Clock lateEvening = Clock.fixed(Instant.parse("2025-05-06T23:30:00Z"), ZoneId.of("UTC"));
+        assertEquals(Duration.ofMinutes(30), MidnightRollover.untilNextMidnight(lateEvening));
+    }
+
+    @Test
+    public void testTaskWindowsRollOverAtMidnight() {
+        LocalDate day = LocalDate.of(2025, 5, 6);
+        Task dueToday = new Task("Today", "d", day);
+        Task dueInAWeek = new Task("Week", "d", day.plusDays(7));
+        Task dueInTwoWeeks = new Task("Two weeks", "d", day.plusDays(14));
+        TaskStore store = new TaskStore(Arrays.asList(dueToday, dueInAWeek, dueInTwoWeeks));
+        TaskDateIndex index = new TaskDateIndex(store);
+        TaskWindows windows = new TaskWindows(store, index, day);
+
+        assertTrue(windows.getThisWeek().allWeekTasks().contains(dueToday));
+        assertTrue(windows.getNextWeek().allWeekTasks().contains(dueInAWeek));
+        assertFalse(windows.getNextWeek().allWeekTasks().contains(dueInTwoWeeks));
+
+        assertTrue(windows.rollTo(day.plusDays(1)));
+        assertEquals(day.plusDays(1), windows.getThisWeek().getStartDate());
+        assertTrue(windows.getOverdue().contains(dueToday));
+        assertTrue(windows.getThisWeek().allWeekTasks().contains(dueInAWeek));
+        assertTrue(windows.getNextWeek().allWeekTasks().contains(dueInTwoWeeks));
+        assertFalse(windows.rollTo(day.plusDays(1)));
+
+        // Store changes after the rollover land in the shifted windows
+        store.setDueDate(dueToday, day.plusDays(3));
+        assertFalse(windows.getOverdue().contains(dueToday));
+        assertTrue(windows.getThisWeek().getWeekMap().get(day.plusDays(3)).contains(dueToday));
+    }
+
+    @Test
+    public void testFenwickTreeGrowsBothWays() {
+        FenwickTree tree = new FenwickTree();
+        tree.add(1000, 2);
+        tree.add(5000, 3);   // grows to the right
+        tree.add(-3000, 4);  // grows to the left
+        tree.add(1000, -1);
+        assertEquals(8, tree.total());
+        assertEquals(4, tree.prefixSum(0));
+        assertEquals(5, tree.prefixSum(1000));
+        assertEquals(4, tree.rangeSum(1000, 5000));
+        assertEquals(0, tree.rangeSum(1001, 4999));
+        assertEquals(0, tree.prefixSum(-3001));
+    }
+
+    @Test
+    public void testFenwickTreeHandlesFarOffDates() {
+        // Dense storage over this span would need hundreds of MB
+        long far = LocalDate.parse("+100000-01-01").toEpochDay();
+        long farBack = LocalDate.parse("-50000-01-01").toEpochDay();
+        FenwickTree tree = new FenwickTree();
+        TreeMap<Long, Long> naive = new TreeMap<>();
+        Random rnd = new Random(7);
+        long[] positions = {20000, 20001, far, farBack, 19000, far - 1};
+        for (int i = 0; i < 2000; i++) {
+            long pos = positions[rnd.nextInt(positions.length)] + rnd.nextInt(50);
+            long delta = rnd.nextInt(5) - 2;
+            tree.add(pos, delta);
+            naive.merge(pos, delta, Long::sum);
+        }
+        for (long pos : new long[] {farBack - 1, farBack + 10, 0, 19020, 20010, 20100, far, far + 100}) {
+            long expected = 0;
+            for (long v : naive.headMap(pos, true).values()) {
+                expected += v;
+            }
+            assertEquals(expected, tree.prefixSum(pos));
+        }
+    }
+
+    @Test
+    public void testTaskStatsFollowStore() {
+        LocalDate day = LocalDate.of(2025, 5, 6);
+        Task a = new Task("A", "d", day);
+        Task b = new Task("B", "d", day);
+        Task c = new Task("C", "d", day.plusDays(10));
+        TaskStore store = new TaskStore(Arrays.asList(a, b, c));
+        TaskStats stats = new TaskStats(store);
+
+        assertEquals(2, stats.totalBetween(day, day));
+        assertEquals(0.0, stats.completionRate(day, day), 1e-9);
+
+        store.setComplete(a, true);
+        assertEquals(0.5, stats.completionRate(day, day), 1e-9);
+        assertEquals(1, stats.overdueOn(day.plusDays(1)));
+        assertEquals(2, stats.remainingFrom(day));
+
+        store.setDueDate(b, day.plusDays(10));
+        assertEquals(0, stats.overdueOn(day.plusDays(1)));
+        assertEquals(2, stats.openBetween(day.plusDays(10), day.plusDays(10)));
+
+        store.remove(c);
+        assertEquals(2, stats.size());
+        assertEquals(1, stats.remainingFrom(day));
+    }
+
+    @Test
+    public void testTaskQueryParse() {
+        LocalDate day = LocalDate.of(2025, 5, 6);
+        TaskQuery q = TaskQuery.parse("Report is:open due:today..2025-05-31", day);
+        assertEquals(day, q.getFrom());
+        assertEquals(LocalDate.of(2025, 5, 31), q.getTo());
+        assertEquals(Boolean.FALSE, q.getComplete());
+        assertEquals(Arrays.asList("report"), q.getTerms());
+
+        try {
+            TaskQuery.parse("due:05/06/2025", day);
+            fail("bad date should be rejected");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testTaskQueryEnginePicksMostSelectiveIndex() {
+        LocalDate day = LocalDate.of(2025, 5, 6);
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            tasks.add(new Task("Chore " + i, "routine", day.plusDays(i % 30)));
+        }
+        Task report = new Task("Quarterly report", "finance", day.plusDays(3));
+        tasks.add(report);
+        TaskStore store = new TaskStore(tasks);
+        TaskStats stats = new TaskStats(store);
+        TaskQueryEngine engine = new TaskQueryEngine(store, new TaskDateIndex(store),
+            new TaskStatusIndex(store), new TaskTextIndex(store), stats);
+
+        TaskQuery byTerm = new TaskQuery().withTerm("quart").complete(false);
+        assertEquals("text:quart", engine.plan(byTerm).getSource());
+        assertEquals(Arrays.asList(report), engine.run(byTerm));
+
+        TaskQuery byDate = new TaskQuery().dueBetween(day.plusDays(3), day.plusDays(3));
+        assertEquals("date", engine.plan(byDate).getSource());
+        assertEquals(5, engine.run(byDate).size());
+
+        store.setComplete(report, true);
+        assertTrue(engine.run(byTerm).isEmpty());
+        assertEquals("status", engine.plan(new TaskQuery().complete(true)).getSource());
+        assertEquals(Arrays.asList(report), engine.run(new TaskQuery().complete(true)));
+
+        store.update(report, t -> t.setName("Annual summary"));
+        assertTrue(engine.run(new TaskQuery().withTerm("quarterly")).isEmpty());
+        assertEquals(Arrays.asList(report), engine.run(new TaskQuery().withTerm("annual")));
+    }
+
+    @Test
+    public void testTaskTextIndexFollowsRenamesAndRemovals() {
+        Task a = new Task("Fix roof", "before winter", LocalDate.of(2025, 5, 6));
+        Task b = new Task("Fix bike", "flat tyre", LocalDate.of(2025, 5, 7));
+        TaskStore store = new TaskStore(Arrays.asList(a, b));
+        TaskTextIndex index = new TaskTextIndex(store);
+        assertEquals(2, index.estimate("fix"));
+
+        // Old words come from the change's snapshot
+        store.update(a, t -> t.setName("Paint roof"));
+        assertEquals(1, index.estimate("fix"));
+        assertEquals(new HashSet<>(Arrays.asList(a)), index.lookup("paint"));
+        assertEquals(new HashSet<>(Arrays.asList(a)), index.lookup("roof"));
+
+        // A task edited and removed in one batch leaves nothing behind
+        store.batch(s -> {
+            s.update(b, t -> t.setDescription("new chain"));
+            s.remove(b);
+        });
+        assertEquals(0, index.estimate("fix"));
+        assertEquals(0, index.estimate("flat"));
+        assertEquals(0, index.estimate("chain"));
+        assertEquals(Arrays.asList("näh", "2025", "x"), new ArrayList<>(TaskTextIndex.words("Näh-2025 x!")));
+    }
+
+    @Test
+    public void testCsvExportImportRoundTrip() throws IOException {
+        Task tricky = new Task("Buy milk, eggs", "say \"hi\"\nto the cashier", LocalDate.of(2025, 5, 6));
+        tricky.markComplete();
+        tricky.setPriority(Task.PRIORITY_HIGH);
+        tricky.setEstimateMinutes(15);
+        List<Task> tasks = new ArrayList<>(sampleTasks);
+        tasks.add(tricky);
+
+        StringWriter out = new StringWriter();
+        TaskTransfer.exportCsv(tasks, out);
+        // A chunk size of 2 makes the parse run as several fork-join tasks
+        TaskTransfer.Result result = TaskTransfer.importCsv(new BufferedReader(new StringReader(out.toString())), 2);
+
+        assertTrue(result.getErrors().isEmpty());
+        assertEquals(4, result.getTasks().size());
+        Task back = result.getTasks().get(3);
+        assertEquals("Buy milk, eggs", back.getName());
+        assertEquals("say \"hi\"\nto the cashier", back.getDescription());
+        assertTrue(back.isComplete());
+        assertEquals(Task.PRIORITY_HIGH, back.getPriority());
+        assertEquals(15, back.getEstimateMinutes());
+        assertEquals("Task2", result.getTasks().get(1).getName());
+    }
+
+    @Test
+    public void testCsvImportReportsBadRows() throws IOException {
+        String csv = "due,name\n2025-05-06,Good\nnot-a-date,Bad\n2025-05-07,\n";
+        TaskTransfer.Result result = TaskTransfer.importCsv(new BufferedReader(new StringReader(csv)), 8192);
+        assertEquals(1, result.getTasks().size());
+        assertEquals(2, result.getErrors().size());
+        assertTrue(result.getErrors().get(0).startsWith("line 3"));
+    }
+
+    @Test
+    public void testCsvImportStrayQuoteStaysInItsField() throws IOException {
+        String csv = "name,description,due\nMonitor,Screen 5\" wide,2025-05-06\n"
+            + "Desk,\"two\nlines\",2025-05-07\nChair,plain,2025-05-08\n";
+        TaskTransfer.Result result = TaskTransfer.importCsv(new BufferedReader(new StringReader(csv)), 8192);
+        assertTrue(result.getErrors().isEmpty());
+        assertEquals(3, result.getTasks().size());
+        assertEquals("Screen 5\" wide", result.getTasks().get(0).getDescription());
+        assertEquals("two\nlines", result.getTasks().get(1).getDescription());
+
+        // An unclosed quote is cut off at the record limit instead of swallowing the file
+        StringBuilder big = new StringBuilder("name,description,due\nBroken,\"never closed,2025-05-06\n");
+        char[] filler = new char[1000];
+        Arrays.fill(filler, 'x');
+        while (big.length() < TaskTransfer.MAX_RECORD_CHARS + 5000) {
+            big.append(filler).append('\n');
+        }
+        big.append("After,ok,2025-05-09\n");
+        result = TaskTransfer.importCsv(new BufferedReader(new StringReader(big.toString())), 8192);
+        assertTrue(result.getErrors().get(0).startsWith("line 2: record longer than"));
+        assertEquals("After", result.getTasks().get(result.getTasks().size() - 1).getName());
+    }
+
+    @Test
+    public void testICalExportImportRoundTrip() throws IOException {
+        StringBuilder longName = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            longName.append("word").append(i).append(' ');
+        }
+        Task folded = new Task(longName.toString().trim(), "a; b, c", LocalDate.of(2025, 12, 31));
+        folded.markComplete();
+        folded.setPriority(Task.PRIORITY_MEDIUM);
+
+        StringWriter out = new StringWriter();
+        TaskTransfer.exportICal(Arrays.asList(task1, folded), out);
+        TaskTransfer.Result result = TaskTransfer.importICal(new BufferedReader(new StringReader(out.toString())), 1);
+
+        assertTrue(result.getErrors().isEmpty());
+        assertEquals(2, result.getTasks().size());
+        Task back = result.getTasks().get(1);
+        assertEquals(folded.getName(), back.getName());
+        assertEquals("a; b, c", back.getDescription());
+        assertEquals(LocalDate.of(2025, 12, 31), back.getDate());
+        assertTrue(back.isComplete());
+        assertEquals(Task.PRIORITY_MEDIUM, back.getPriority());
+        assertEquals(folded.getId(), back.getId());
+        assertFalse(result.getTasks().get(0).isComplete());
+        assertEquals(task1.getId(), result.getTasks().get(0).getId());
+
+        // Files from other apps may leave the UID out; such tasks get a fresh id
+        String noUid = "BEGIN:VTODO\r\nSUMMARY:Call\r\nDUE;VALUE=DATE:20250506\r\nEND:VTODO\r\n";
+        Task call = TaskTransfer.importICal(new BufferedReader(new StringReader(noUid)), 1).getTasks().get(0);
+        assertFalse(call.hasId());
+    }
+
+    @Test
+    public void testTaskPriorityAndEstimate() {
+        assertEquals(Task.PRIORITY_NONE, task1.getPriority());
+        task1.setPriority(Task.PRIORITY_HIGH);
+        task1.setEstimateMinutes(30);
+        assertEquals("High", task1.getPriorityName());
+        assertEquals(30, task1.getEstimateMinutes());
+        try {
+            task1.setPriority(7);
+            fail("out-of-range priority should be rejected");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testNextUpQueueOrdersAndFollowsEdits() {
+        LocalDate day = LocalDate.of(2025, 5, 6);
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            tasks.add(new Task("Chore " + i, "d", day.plusDays(i)));
+        }
+        Task urgent = new Task("Urgent", "d", day.plusDays(40));
+        urgent.setPriority(Task.PRIORITY_HIGH);
+        tasks.add(urgent);
+        TaskStore store = new TaskStore(tasks);
+        NextUpQueue queue = new NextUpQueue(store);
+
+        List<Task> top = queue.top(3);
+        assertEquals(Arrays.asList(urgent, tasks.get(0), tasks.get(1)), top);
+
+        store.setComplete(urgent, true);
+        assertEquals(tasks.get(0), queue.peek());
+        assertEquals(50, queue.size());
+
+        store.setPriority(tasks.get(30), Task.PRIORITY_MEDIUM);
+        store.setDueDate(tasks.get(0), day.plusDays(100));
+        assertEquals(Arrays.asList(tasks.get(30), tasks.get(1), tasks.get(2)), queue.top(3));
+
+        store.setComplete(urgent, false);
+        store.remove(tasks.get(30));
+        assertEquals(Arrays.asList(urgent, tasks.get(1)), queue.top(2));
+
+        // top(k) agrees with a full sort
+        List<Task> open = new ArrayList<>();
+        for (Task t : store.getTasks()) {
+            if (!t.isComplete()) open.add(t);
+        }
+        open.sort(NextUpQueue.ORDER);
+        assertEquals(open, queue.top(open.size()));
+    }
+
+    @Test
+    public void testTaskSyncMergesConcurrentEdits() throws IOException {
+        File folder = Files.createTempDirectory("sync").toFile();
+        TaskStore storeA = new TaskStore();
+        TaskStore storeB = new TaskStore();
+        TaskSync a = new TaskSync(storeA, null);
+        TaskSync b = new TaskSync(storeB, null);
+        a.setFolder(folder);
+        b.setFolder(folder);
+
+        Task original = new Task("Plan trip", "flights", LocalDate.of(2025, 5, 6));
+        storeA.add(original);
+        a.push();
+        assertTrue(b.pull() > 0);
+        assertEquals(1, storeB.size());
+        Task copy = storeB.getTasks().get(0);
+        assertEquals(original.getId(), copy.getId());
+        assertEquals("flights", copy.getDescription());
+
+        // Only the touched field travels
+        storeA.update(original, t -> t.setName("Plan holiday"));
+        assertEquals(1, a.outbox().size());
+        storeB.setComplete(copy, true);
+        storeA.setPriority(original, Task.PRIORITY_LOW);
+        storeB.setPriority(copy, Task.PRIORITY_HIGH);
+        a.push();
+        b.push();
+        a.pull();
+        b.pull();
+
+        for (Task t : Arrays.asList(original, copy)) {
+            assertEquals("Plan holiday", t.getName());
+            assertTrue(t.isComplete());
+        }
+        assertEquals(original.getPriority(), copy.getPriority());
+
+        // A delete wins over a concurrent edit
+        storeA.remove(original);
+        storeB.update(copy, t -> t.setDescription("trains"));
+        a.push();
+        b.push();
+        a.pull();
+        b.pull();
+        assertEquals(0, storeA.size());
+        assertEquals(0, storeB.size());
+    }
+
+    @Test
+    public void testTaskSyncSkipsInvalidRemoteChanges() {
+        Task t = new Task("Plan trip", "", LocalDate.of(2025, 5, 6));
+        TaskStore store = new TaskStore(Arrays.asList(t));
+        TaskSync sync = new TaskSync(store, null);
+        List<TaskSync.FieldOp> ops = Arrays.asList(
+            new TaskSync.FieldOp(t.getId(), TaskSync.Field.PRIORITY, 9, new TaskSync.Stamp(5, "other")),
+            new TaskSync.FieldOp(t.getId(), TaskSync.Field.NAME, "Plan holiday", new TaskSync.Stamp(6, "other")));
+
+        assertEquals(1, sync.merge(ops));
+        assertEquals(1, sync.skippedChanges());
+        assertEquals("Plan holiday", t.getName());
+        assertEquals(Task.PRIORITY_NONE, t.getPriority());
+
+        // The bad change left no stamp behind, so a valid older one still wins
+        assertEquals(1, sync.merge(Arrays.asList(
+            new TaskSync.FieldOp(t.getId(), TaskSync.Field.PRIORITY, Task.PRIORITY_HIGH, new TaskSync.Stamp(4, "other")))));
+        assertEquals(0, sync.skippedChanges());
+        assertEquals(Task.PRIORITY_HIGH, t.getPriority());
+    }
+
+    @Test
+    public void testTaskSyncKeepsListsApartInOneFolder() throws IOException {
+        File folder = Files.createTempDirectory("sync").toFile();
+        TaskStore work = new TaskStore();
+        TaskStore home = new TaskStore();
+        TaskStore workElsewhere = new TaskStore();
+        TaskSync workSync = new TaskSync(work, null, "Work");
+        TaskSync homeSync = new TaskSync(home, null, "Home");
+        TaskSync otherSync = new TaskSync(workElsewhere, null, "Work");
+        for (TaskSync s : Arrays.asList(workSync, homeSync, otherSync)) {
+            s.setFolder(folder);
+        }
+
+        work.add(new Task("Report", "", LocalDate.of(2025, 5, 6)));
+        workSync.push();
+        assertEquals(0, homeSync.pull());
+        assertEquals(0, home.size());
+        assertTrue(otherSync.pull() > 0);
+        assertEquals(1, workElsewhere.size());
+    }
+
+    @Test
+    public void testTaskListKeepsIdsOfOldTasks() throws IOException {
+        File file = File.createTempFile("legacy-ids", ".dat");
+        file.deleteOnExit();
+        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(file))) {
+            oos.writeObject(new ArrayList<>(Arrays.asList(new Task(null, "Old", "no id", LocalDate.of(2025, 5, 6)))));
+        }
+        TaskList list = new TaskList("Default", file);
+        list.open();
+        String id = list.getStore().getTasks().get(0).getId();
+        list.close();
+        list.open();
+        assertEquals(id, list.getStore().getTasks().get(0).getId());
+    }
+
+    @Test
+    public void testTaskSyncRecordsNothingWhileOffAndJournalsEdits() throws IOException {
+        File dir = Files.createTempDirectory("syncstate").toFile();
+        File stateFile = new File(dir, "Sync.dat");
+        Task t = new Task("Water plants", "", LocalDate.of(2025, 5, 6));
+        TaskStore store = new TaskStore(Arrays.asList(t));
+        TaskSync sync = new TaskSync(store, stateFile);
+        for (int i = 0; i < 1000; i++) {
+            store.setComplete(t, i % 2 == 0);
+        }
+        assertEquals(0, sync.pendingChanges());
+        assertFalse(stateFile.exists());
+
+        // Turning sync on publishes the current tasks once
+        sync.setFolder(new File(dir, "shared"));
+        assertEquals(6, sync.pendingChanges());
+        sync.push();
+        long stateSize = stateFile.length();
+        store.setComplete(t, true);
+        store.setPriority(t, Task.PRIORITY_HIGH);
+        assertEquals(stateSize, stateFile.length()); // Edits go to the journal only
+        assertEquals(2, sync.pendingChanges());
+
+        // A restart replays the journal on top of the saved state
+        TaskSync reloaded = new TaskSync(new TaskStore(Arrays.asList(t)), stateFile);
+        assertEquals(2, reloaded.pendingChanges());
+        assertEquals(2, reloaded.push());
+        assertTrue(new File(new File(dir, "shared/Default/" + reloaded.getReplicaId()), "2.delta").exists());
+    }
+
+    @Test
+    public void testWeekViewCacheEvictsAndInvalidatesPrecisely() {
+        LocalDate week0 = LocalDate.of(2025, 5, 5);
+        LocalDate week1 = week0.plusWeeks(1);
+        LocalDate week2 = week0.plusWeeks(2);
+        Task inWeek0 = new Task("A", "d", week0.plusDays(2));
+        Task inWeek2 = new Task("B", "d", week2);
+        TaskStore store = new TaskStore(Arrays.asList(inWeek0, inWeek2));
+        TaskDateIndex index = new TaskDateIndex(store);
+        WeekViewCache<String> cache = new WeekViewCache<>(store, index, DateBasedWeeklyToDoList::toString, 2);
+
+        cache.getView(week0);
+        cache.getView(week1);
+        cache.getView(week0);
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+
+        // An edit in week 0 drops only week 0
+        store.setComplete(inWeek0, true);
+        assertFalse(cache.isCached(week0));
+        assertTrue(cache.isCached(week1));
+
+        // Moving a task out of week 2 into week 1 drops week 1 (and week 2 if cached)
+        cache.getView(week0);
+        store.setDueDate(inWeek2, week1.plusDays(1));
+        assertFalse(cache.isCached(week1));
+        assertTrue(cache.isCached(week0));
+        assertTrue(cache.getWeek(week1).allWeekTasks().contains(inWeek2));
+
+        // Capacity 2: a third week evicts the least recently used one
+        cache.getView(week2);
+        assertFalse(cache.isCached(week0));
+        assertTrue(cache.isCached(week1));
+
+        // Invalidating a day (e.g. its selection ticks changed) drops just that week
+        cache.invalidate(week2.plusDays(6));
+        assertFalse(cache.isCached(week2));
+        assertTrue(cache.isCached(week1));
+    }
+
+    @Test
+    public void testTaskSnapshotIsolatesCorruptChunks() throws IOException {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            tasks.add(new Task("Task " + i, "d", LocalDate.of(2025, 5, 6).plusDays(i)));
+        }
+        File file = File.createTempFile("snapshot", ".dat");
+        file.deleteOnExit();
+        TaskSnapshot.save(tasks, file, 10);
+
+        TaskSnapshot.Result clean = TaskSnapshot.load(file);
+        assertFalse(clean.isDamaged());
+        assertEquals(30, clean.getTasks().size());
+        assertEquals("Task 29", clean.getTasks().get(29).getName());
+
+        // Flip a byte near the end of the file: only the last chunk is lost
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        bytes[bytes.length - 5] ^= 0x55;
+        Files.write(file.toPath(), bytes);
+        TaskSnapshot.Result damaged = TaskSnapshot.load(file);
+        assertEquals(1, damaged.getDamage().size());
+        assertTrue(damaged.getDamage().get(0).startsWith("chunk 2"));
+        assertEquals(20, damaged.getTasks().size());
+        assertEquals("Task 0", damaged.getTasks().get(0).getName());
+
+        // A damaged chunk count in the header is reported, and no chunk is lost
+        TaskSnapshot.save(tasks, file, 10);
+        bytes = Files.readAllBytes(file.toPath());
+        assertEquals(3, bytes[11]);
+        bytes[11] = 1;
+        Files.write(file.toPath(), bytes);
+        TaskSnapshot.Result miscounted = TaskSnapshot.load(file);
+        assertTrue(miscounted.isDamaged());
+        assertEquals(30, miscounted.getTasks().size());
+
+        // So are bytes left over after the last chunk
+        Files.write(file.toPath(), new byte[] {1, 2, 3}, StandardOpenOption.APPEND);
+        byte[] padded = Files.readAllBytes(file.toPath());
+        padded[11] = 3;
+        Files.write(file.toPath(), padded);
+        TaskSnapshot.Result trailing = TaskSnapshot.load(file);
+        assertEquals(Arrays.asList("unexpected bytes after chunk 2"), trailing.getDamage());
+        assertEquals(30, trailing.getTasks().size());
+    }
+
+    @Test
+    public void testTaskSnapshotReadsOldFormat() throws IOException {
+        File file = File.createTempFile("legacy", ".dat");
+        file.deleteOnExit();
+        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(file))) {
+            oos.writeObject(new ArrayList<>(sampleTasks));
+        }
+        TaskSnapshot.Result result = TaskSnapshot.load(file);
+        assertFalse(result.isDamaged());
+        assertEquals(3, result.getTasks().size());
+        assertEquals("Task2", result.getTasks().get(1).getName());
+    }
+
+    @Test
+    public void testToDoListClear() {
+        ToDoList list = new ToDoList();
+        list.addTask(sampleTasks.get(0));
+        list.addTask(sampleTasks.get(1));
+        assertEquals(2, list.getTasks().size());
+        list.clear();
+        assertTrue(list.getTasks().isEmpty());
+    }
+
+    @Test
+    public void testTaskWorkspaceOpensLazilyAndEvicts() throws IOException {
+        File dir = Files.createTempDirectory("lists").toFile();
+        File defaultFile = new File(dir, "default-list.dat");
+        MutableClock clock = new MutableClock(Instant.parse("2025-05-06T09:00:00Z"));
+        TaskWorkspace ws = new TaskWorkspace(defaultFile, new File(dir, "lists"), 2, clock);
+        ws.create("Work").getStore().add(new Task("Report", "w", LocalDate.of(2025, 5, 7)));
+        ws.create("Home").getStore().add(new Task("Dishes", "h", LocalDate.of(2025, 5, 7)));
+        assertEquals(Arrays.asList("Default", "Home", "Work"), ws.getNames());
+        assertEquals(2, ws.openCount());
+
+        // Opening a third list closes the least recently used, unless it is pinned
+        ws.pin("Work", true);
+        ws.open("Default");
+        assertTrue(ws.get("Work").isOpen());
+        assertFalse(ws.get("Home").isOpen());
+        assertEquals(2, ws.openCount());
+
+        // A fresh workspace finds the lists on disk but loads nothing until asked
+        TaskWorkspace reopened = new TaskWorkspace(defaultFile, new File(dir, "lists"), 2, clock);
+        assertFalse(reopened.get("Home").isOpen());
+        assertEquals("Dishes", reopened.open("Home").getStore().getTasks().get(0).getName());
+
+        clock.advance(Duration.ofMinutes(30));
+        ws.open("Default");
+        assertEquals(0, ws.evictIdle(Duration.ofMinutes(10))); // Work is old but pinned
+
+        // Unpinning (switching away) counts as a use, so Work is not closed at once
+        ws.pin("Work", false);
+        assertEquals(0, ws.evictIdle(Duration.ofMinutes(10)));
+        assertTrue(ws.get("Work").isOpen());
+        clock.advance(Duration.ofMinutes(10));
+        ws.open("Default");
+        assertEquals(1, ws.evictIdle(Duration.ofMinutes(10)));
+        assertFalse(ws.get("Work").isOpen());
+        assertTrue(ws.get("Default").isOpen());
+
+        try {
+            ws.create("work");
+            fail("duplicate name accepted");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void testTaskWorkspaceCombinedWeekMergesLists() throws IOException {
+        File dir = Files.createTempDirectory("lists").toFile();
+        TaskWorkspace ws = new TaskWorkspace(new File(dir, "default-list.dat"), new File(dir, "lists"), 8, Clock.systemUTC());
+        LocalDate monday = LocalDate.of(2025, 5, 5);
+        ws.open("Default").getStore().add(new Task("Groceries", "d", monday));
+        Task report = new Task("Report", "w", monday);
+        ws.create("Work").getStore().addAll(Arrays.asList(report, new Task("Review", "w", monday.plusDays(3))));
+        ws.get("Work").getStore().add(new Task("Later", "w", monday.plusWeeks(2)));
+
+        DateBasedWeeklyToDoList week = ws.combinedWeek(monday);
+        assertEquals(2, week.getWeekMap().get(monday).size());
+        assertEquals("Groceries", week.getWeekMap().get(monday).get(0).getName());
+        assertEquals(1, week.getWeekMap().get(monday.plusDays(3)).size());
+        assertEquals(3, week.allWeekTasks().size());
+        assertEquals("Work", ws.listOf(report));
+
+        // Closed lists are read without being opened, and every task keeps its list
+        TaskWorkspace small = new TaskWorkspace(new File(dir, "default-list.dat"), new File(dir, "lists"), 1, Clock.systemUTC());
+        small.open("Default");
+        Map<Task, String> owners = new IdentityHashMap<>();
+        week = small.combinedWeek(monday, owners);
+        assertEquals(3, week.allWeekTasks().size());
+        assertEquals(1, small.openCount());
+        assertFalse(small.get("Work").isOpen());
+        for (Task t : week.allWeekTasks()) {
+            assertEquals(t.getName().equals("Groceries") ? "Default" : "Work", owners.get(t));
+        }
+    }
+
+    /** A clock that only moves when told to. */
+    private static class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration d) {
+            now = now.plus(d);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneId.of("UTC");
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
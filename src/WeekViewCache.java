@@ -0,0 +1,163 @@
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * A bounded least-recently-used cache of week views and their rendered form,
+ * keyed by the week's start date.
+ * <p>
+ * Flipping back and forth between weeks reuses the cached entries instead of
+ * rebuilding them. The cache listens to the store and drops an entry only when
+ * a task that changed was, or now is, due inside that entry's 7-day window.
+ * Edits elsewhere leave it alone.
+ *
+ * @param <V> the rendered type, e.g. a JavaFX node
+ */
+public class WeekViewCache<V> implements TaskStore.Listener {
+    private final TaskDateIndex index;
+    private final Function<DateBasedWeeklyToDoList, V> renderer;
+    private final LinkedHashMap<LocalDate, Entry<V>> entries;
+    private int hits;
+    private int misses;
+
+    /**
+     * A built week and its rendering.
+     */
+    private static final class Entry<V> {
+        final DateBasedWeeklyToDoList week;
+        final V view;
+
+        Entry(DateBasedWeeklyToDoList week, V view) {
+            this.week = week;
+            this.view = view;
+        }
+    }
+
+    /**
+     * Creates an empty cache and starts following the store.
+     * The index must already be registered with the store.
+     *
+     * @param store    the store to follow
+     * @param index    the date index weeks are built from
+     * @param renderer turns a built week into its view
+     * @param capacity how many weeks to keep
+     */
+    public WeekViewCache(TaskStore store, TaskDateIndex index, Function<DateBasedWeeklyToDoList, V> renderer, int capacity) {
+        this.index = index;
+        this.renderer = renderer;
+        // Access order plus removeEldestEntry gives LRU eviction https://docs.oracle.com/javase/8/docs/api/java/util/LinkedHashMap.html
+        this.entries = new LinkedHashMap<LocalDate, Entry<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<LocalDate, Entry<V>> eldest) {
+                return size() > capacity;
+            }
+        };
+        store.addListener(this);
+    }
+
+    /**
+     * Returns the rendered view of the week starting on a date, building it on a miss.
+     * @param start the first day of the week
+     * @return the view
+     */
+    public V getView(LocalDate start) {
+        return lookup(start).view;
+    }
+
+    /**
+     * Returns the built week starting on a date, building it on a miss.
+     * @param start the first day of the week
+     * @return the week
+     */
+    public DateBasedWeeklyToDoList getWeek(LocalDate start) {
+        return lookup(start).week;
+    }
+
+    /**
+     * Checks if a week is cached, without touching its recency.
+     * @param start the first day of the week
+     * @return true if cached
+     */
+    public boolean isCached(LocalDate start) {
+        return entries.containsKey(start);
+    }
+
+    /**
+     * Drops the entries whose week contains a day, e.g. because something
+     * drawn for that day changed outside the store.
+     * @param day the day that changed
+     */
+    public void invalidate(LocalDate day) {
+        dropCovering(Collections.singleton(day));
+    }
+
+    /**
+     * Drops every entry.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Returns how many lookups were served from the cache.
+     * @return the hit count
+     */
+    public int getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns how many lookups had to build a week.
+     * @return the miss count
+     */
+    public int getMisses() {
+        return misses;
+    }
+
+    @Override
+    public void tasksChanged(TaskChange change) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        Set<LocalDate> touched = new HashSet<>();
+        for (Task t : change.getAdded()) {
+            touched.add(t.getDate());
+        }
+        for (Task t : change.getRemoved()) {
+            touched.add(change.getPreviousDate(t));
+        }
+        for (Task t : change.getUpdated()) {
+            touched.add(change.getPreviousDate(t));
+            touched.add(t.getDate());
+        }
+        dropCovering(touched);
+    }
+
+    // Internal helpers
+
+    private void dropCovering(Set<LocalDate> touched) {
+        // The cache is small, so checking each entry against each date is cheap
+        entries.keySet().removeIf(start -> {
+            LocalDate end = start.plusDays(7);
+            for (LocalDate d : touched) {
+                if (!d.isBefore(start) && d.isBefore(end)) {
+                    return true;
+                }
+            }
+            return false;
+        });
+    }
+
+    private Entry<V> lookup(LocalDate start) {
+        Entry<V> e = entries.get(start);
+        if (e != null) {
+            hits++;
+            return e;
+        }
+        misses++;
+        DateBasedWeeklyToDoList week = new DateBasedWeeklyToDoList(index, start);
+        e = new Entry<>(week, renderer.apply(week));
+        entries.put(start, e);
+        return e;
+    }
+}
@@ -1,21 +1,53 @@
+import java.time.Clock; //https://docs.oracle.com/javase/8/docs/api/java/time/Clock.html
 import java.time.LocalDate; //https://docs.oracle.com/javase/8/docs/api/java/time/LocalDate.html
 import java.time.format.DateTimeFormatter; //https://docs.oracle.com/javase/8/docs/api/java/time/format/DateTimeFormatter.html
 
 /**
  * Utility class for retrieving the current date in ISO format.
- * 
+ *
  * Provides a simple method to get today's date as a formatted string.
+ * The clock it reads from can be swapped out so tests (and the midnight
+ * rollover) can drive time deterministically.
  */
 public class kiwi {
+    private static Clock clock = Clock.systemDefaultZone(); // Clock used for "now"; the system clock unless replaced
+
+    /**
+     * Returns the clock the application reads the current time from.
+     *
+     * @return the current clock
+     */
+    public static Clock getClock() {
+        return clock;
+    }
+
+    /**
+     * Replaces the clock, e.g. with Clock.fixed(...) in tests.
+     *
+     * @param newClock the clock to use from now on
+     */
+    public static void setClock(Clock newClock) {
+        clock = newClock;
+    }
+
+    /**
+     * Returns today's date according to the current clock.
+     *
+     * @return today's date
+     */
+    public static LocalDate today() {
+        return LocalDate.now(clock);
+    }
+
     /**
-     * Returns today's date formatted as "yyyy-MM-dd" using the system clock.
+     * Returns today's date formatted as "yyyy-MM-dd" using the current clock.
      *
      * @return a string representing today's date in ISO_LOCAL_DATE format
      */
     public static String getDateTime() {
-        // Obtain the current date from the system clock
-        LocalDate today = LocalDate.now();
+        // Obtain the current date from the clock
+        LocalDate today = today();
         // Format the date in ISO_LOCAL_DATE (e.g., "2025-05-06")
         return today.format(DateTimeFormatter.ISO_LOCAL_DATE);
     }
-}
\ No newline at end of file
+}